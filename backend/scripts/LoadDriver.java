@@ -0,0 +1,290 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load driver for a running backend. N concurrent clients issue a scenario's
+ * mix of reads and writes for a fixed duration, then throughput and latency percentiles are
+ * printed per operation.
+ * <p>
+ * By default the clients share a scratch group seeded with expenses, deleted afterwards. With
+ * {@code --groups=existing} they spread over the groups already stored (e.g. generated by the
+ * {@code synthetic} profile), picking popular groups more often.
+ *
+ * Usage: java scripts/LoadDriver.java [baseUrl] [concurrency] [durationSeconds]
+ *            [--scenario=mixed|read-heavy|write-heavy|history] [--groups=scratch|existing]
+ *            [--warmup=seconds]
+ */
+public class LoadDriver {
+
+    private static final Pattern GROUP_ID = Pattern.compile("\"groupId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern GROUP = Pattern.compile(
+            "\"groupId\"\\s*:\\s*\"([^\"]+)\".*?\"participants\"\\s*:\\s*\\[([^\\]]*)\\]");
+    private static final Pattern NAME = Pattern.compile("\"([^\"]+)\"");
+    private static final String[] MEMBERS = {"Ann", "Ben", "Cat", "Dan", "Eve", "Fay", "Gus", "Hal"};
+    private static final String[] OPERATIONS = {
+            "list-page", "settlements", "group", "add-expense", "add-batch", "settle-range", "list-groups"
+    };
+    private static final int BATCH_SIZE = 50;
+
+    // Percent of requests per operation, in OPERATIONS order
+    private static final Map<String, int[]> SCENARIOS = Map.of(
+            "mixed", new int[]{40, 30, 20, 10, 0, 0, 0},
+            "read-heavy", new int[]{35, 30, 15, 2, 0, 15, 3},
+            "write-heavy", new int[]{15, 10, 5, 60, 10, 0, 0},
+            "history", new int[]{10, 20, 0, 5, 0, 65, 0});
+
+    private record Target(String groupId, String[] members) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> positional = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                positional.add(arg);
+            }
+        }
+        String baseUrl = positional.size() > 0 ? positional.get(0) : "http://localhost:8080";
+        int concurrency = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 64;
+        int durationSeconds = positional.size() > 2 ? Integer.parseInt(positional.get(2)) : 30;
+        String scenario = options.getOrDefault("scenario", "mixed");
+        boolean existing = options.getOrDefault("groups", "scratch").equals("existing");
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "0"));
+        int[] weights = SCENARIOS.get(scenario);
+        if (weights == null) {
+            throw new IllegalArgumentException("Unknown scenario " + scenario + ", expected one of " + SCENARIOS.keySet());
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(8))
+                .build();
+
+        List<Target> targets;
+        if (existing) {
+            targets = existingGroups(client, baseUrl);
+        } else {
+            String groupId = createGroup(client, baseUrl);
+            seedExpenses(client, baseUrl, groupId, 2_000);
+            targets = List.of(new Target(groupId, MEMBERS));
+        }
+        double[] popularity = zipf(targets.size(), 1.0);
+
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicLong errors = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<long[][]>> results = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            int seed = w;
+            results.add(workers.submit(() -> runClient(client, baseUrl, targets, popularity, weights,
+                    measureFrom, deadline, seed, errors)));
+        }
+
+        List<List<Long>> latencies = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies.add(new ArrayList<>());
+        }
+        for (Future<long[][]> result : results) {
+            long[][] perOperation = result.get();
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                for (long nanos : perOperation[i]) {
+                    latencies.get(i).add(nanos);
+                }
+            }
+        }
+        workers.shutdown();
+
+        if (!existing) {
+            send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/groups/" + targets.get(0).groupId()))
+                    .DELETE().build());
+        }
+
+        long total = latencies.stream().mapToLong(List::size).sum();
+        System.out.printf("scenario=%s groups=%d concurrency=%d duration=%ds requests=%d errors=%d throughput=%.0f req/s%n",
+                scenario, targets.size(), concurrency, durationSeconds, total, errors.get(),
+                total / (double) durationSeconds);
+        System.out.printf("%-12s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            List<Long> sorted = latencies.get(i);
+            if (sorted.isEmpty()) {
+                continue;
+            }
+            Collections.sort(sorted);
+            System.out.printf("%-12s %8d %9.0f %9.2f %9.2f %9.2f %9.2f%n", OPERATIONS[i], sorted.size(),
+                    sorted.size() / (double) durationSeconds, percentile(sorted, 0.50),
+                    percentile(sorted, 0.95), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+        System.exit(0);
+    }
+
+    private static long[][] runClient(HttpClient client, String baseUrl, List<Target> targets, double[] popularity,
+                                      int[] weights, long measureFrom, long deadline, int seed, AtomicLong errors) {
+        Random random = new Random(seed);
+        List<List<Long>> samples = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            samples.add(new ArrayList<>());
+        }
+
+        while (System.nanoTime() < deadline) {
+            Target target = targets.get(sample(popularity, random));
+            String groupUrl = baseUrl + "/api/groups/" + target.groupId();
+            int operation = pick(weights, random);
+            HttpRequest request = switch (operation) {
+                case 0 -> HttpRequest.newBuilder(URI.create(groupUrl + "/expenses?limit=50")).build();
+                case 1 -> HttpRequest.newBuilder(URI.create(groupUrl + "/settlements")).build();
+                case 2 -> HttpRequest.newBuilder(URI.create(groupUrl)).build();
+                case 3 -> jsonPost(groupUrl + "/expenses", expenseJson(random, target.members()));
+                case 4 -> jsonPost(groupUrl + "/expenses:batch", batchJson(random, target.members(), BATCH_SIZE));
+                case 5 -> HttpRequest.newBuilder(URI.create(groupUrl + "/settlements?" + randomMonth(random))).build();
+                default -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/groups")).build();
+            };
+
+            long start = System.nanoTime();
+            int status = send(client, request);
+            long elapsed = System.nanoTime() - start;
+            if (start < measureFrom) {
+                continue;
+            }
+            if (status >= 200 && status < 300) {
+                samples.get(operation).add(elapsed);
+            } else {
+                errors.incrementAndGet();
+            }
+        }
+
+        long[][] result = new long[OPERATIONS.length][];
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            result[i] = samples.get(i).stream().mapToLong(Long::longValue).toArray();
+        }
+        return result;
+    }
+
+    private static List<Target> existingGroups(HttpClient client, String baseUrl) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/groups")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        List<Target> targets = new ArrayList<>();
+        Matcher group = GROUP.matcher(response.body());
+        while (group.find()) {
+            List<String> members = new ArrayList<>();
+            Matcher name = NAME.matcher(group.group(2));
+            while (name.find()) {
+                members.add(name.group(1));
+            }
+            if (!members.isEmpty()) {
+                targets.add(new Target(group.group(1), members.toArray(new String[0])));
+            }
+        }
+        if (targets.isEmpty()) {
+            throw new IllegalStateException("No groups to load, start the backend with the synthetic profile");
+        }
+        return targets;
+    }
+
+    private static String createGroup(HttpClient client, String baseUrl) throws Exception {
+        StringJoiner members = new StringJoiner("\",\"", "[\"", "\"]");
+        for (String member : MEMBERS) {
+            members.add(member);
+        }
+        String body = "{\"groupName\":\"Load " + System.currentTimeMillis() + "\",\"participants\":" + members + "}";
+        HttpResponse<String> response = client.send(jsonPost(baseUrl + "/api/groups", body),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = GROUP_ID.matcher(response.body());
+        if (response.statusCode() >= 300 || !matcher.find()) {
+            throw new IllegalStateException("Could not create load group: " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private static void seedExpenses(HttpClient client, String baseUrl, String groupId, int count) throws Exception {
+        HttpResponse<String> response = client.send(
+                jsonPost(baseUrl + "/api/groups/" + groupId + "/expenses:batch", batchJson(new Random(0), MEMBERS, count)),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("Could not seed expenses: " + response.body());
+        }
+    }
+
+    private static String batchJson(Random random, String[] members, int count) {
+        StringJoiner batch = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < count; i++) {
+            batch.add(expenseJson(random, members));
+        }
+        return batch.toString();
+    }
+
+    private static String expenseJson(Random random, String[] members) {
+        return String.format(Locale.ROOT, "{\"description\":\"Load test\",\"amount\":%.2f,\"paidBy\":\"%s\"}",
+                1 + random.nextInt(50_000) / 100.0, members[random.nextInt(members.length)]);
+    }
+
+    // One calendar month within the last year, as a from/to query
+    private static String randomMonth(Random random) {
+        LocalDate from = LocalDate.now().minusMonths(1 + random.nextInt(12)).withDayOfMonth(1);
+        return "from=" + from + "&to=" + from.plusMonths(1).minusDays(1);
+    }
+
+    private static int pick(int[] weights, Random random) {
+        int roll = random.nextInt(Arrays.stream(weights).sum());
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static double[] zipf(int n, double skew) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= total;
+        }
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    private static HttpRequest jsonPost(String url, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static int send(HttpClient client, HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static double percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+}
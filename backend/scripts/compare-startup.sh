@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Measures time to first request: from launching the JVM until GET /api/groups returns 200.
+# Compares the default startup, the fast-startup profile, and the profile with the class data
+# sharing archive (built with mvn -Pcds package -DskipTests if missing).
+# Usage: scripts/compare-startup.sh [runs]
+# Extra JVM flags for every mode come from JAVA_OPTS, e.g. JAVA_OPTS=-XX:TieredStopAtLevel=1
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS="${1:-5}"
+JAR=target/fairsplit-backend-1.0.0.jar
+CDS_JAR=target/cds/fairsplit-backend-1.0.0-cds.jar
+CDS_ARCHIVE=target/cds/fairsplit.jsa
+
+[ -f "$CDS_ARCHIVE" ] || mvn -B -q -Pcds package -DskipTests
+
+first_request_ms() {
+    local start pid
+    start=$(date +%s%N)
+    java ${JAVA_OPTS:-} "$@" > target/startup.log 2>&1 &
+    pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+    until curl -sf -o /dev/null http://localhost:8080/api/groups; do
+        kill -0 "$pid" 2>/dev/null || { echo "Backend exited, see target/startup.log" >&2; exit 1; }
+        sleep 0.02
+    done
+    echo $(( ($(date +%s%N) - start) / 1000000 ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run_mode() {
+    local name="$1"
+    shift
+    local times=()
+    for _ in $(seq 1 "$RUNS"); do
+        times+=("$(first_request_ms "$@")")
+    done
+    local sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+    printf "%-22s median %6d ms   runs: %s\n" "$name" "${sorted[$(( RUNS / 2 ))]}" "${times[*]}"
+}
+
+run_mode "default" -jar "$JAR"
+run_mode "fast-startup" -jar "$JAR" --spring.profiles.active=fast-startup
+run_mode "fast-startup + CDS" -XX:SharedArchiveFile="$CDS_ARCHIVE" -jar "$CDS_JAR" --spring.profiles.active=fast-startup
@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Runs the same load against the backend on platform threads and on virtual threads.
+# Usage: scripts/compare-thread-modes.sh [concurrency] [durationSeconds]
+# Virtual threads need Java 21+: on an older runtime the comparison would measure platform
+# threads twice, so the script refuses to run.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAVA_FEATURE="$(java -XshowSettings:properties -version 2>&1 | sed -n 's/^ *java.specification.version = //p')"
+if [ "${JAVA_FEATURE%%.*}" -lt 21 ]; then
+    echo "Comparing thread modes needs Java 21+ for virtual threads; found Java ${JAVA_FEATURE}" >&2
+    exit 1
+fi
+CONCURRENCY="${1:-256}"
+DURATION="${2:-30}"
+JAR=target/fairsplit-backend-1.0.0.jar
+QUIET="--spring.jpa.show-sql=false --logging.level.org.hibernate.SQL=INFO --logging.level.com.fairsplit=INFO"
+
+[ -f "$JAR" ] || mvn -B -q package -DskipTests
+
+run_mode() {
+    local profile="$1"
+    echo "== ${profile:-platform-threads} =="
+    java -jar "$JAR" ${profile:+--spring.profiles.active=$profile} $QUIET > "target/load-${profile:-platform}.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+    for _ in $(seq 1 60); do
+        curl -s -o /dev/null http://localhost:8080/api/groups && break
+        sleep 1
+    done
+    local threads=platform
+    [ -z "$profile" ] || threads=virtual
+    if ! grep -h "Request handling runs on $threads threads" "target/load-${profile:-platform}.log"; then
+        echo "Backend did not start in the expected thread mode; see target/load-${profile:-platform}.log" >&2
+        exit 1
+    fi
+    java scripts/LoadDriver.java http://localhost:8080 "$CONCURRENCY" "$DURATION"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run_mode ""
+run_mode "virtual-threads"
@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Starts the backend with a generated production-like data set and runs a load scenario
+# against its groups. Everything runs locally: in-memory H2, no external services.
+# Usage: scripts/synthetic-load.sh [concurrency] [durationSeconds] [scenario] [backend args...]
+# e.g.   scripts/synthetic-load.sh 64 60 read-heavy --fairsplit.synthetic.expenses=1000000
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+CONCURRENCY="${1:-64}"
+DURATION="${2:-30}"
+SCENARIO="${3:-mixed}"
+shift $(( $# < 3 ? $# : 3 ))
+JAR=target/fairsplit-backend-1.0.0.jar
+LOG=target/load-synthetic.log
+QUIET="--spring.jpa.show-sql=false --logging.level.org.hibernate.SQL=INFO --logging.level.com.fairsplit=INFO"
+
+[ -f "$JAR" ] || mvn -B -q package -DskipTests
+
+java -jar "$JAR" --spring.profiles.active=synthetic $QUIET "$@" > "$LOG" 2>&1 &
+PID=$!
+trap "kill $PID 2>/dev/null" EXIT
+
+# Generation runs once the server is up; wait for it to finish
+until grep -q "Synthetic workload ready\|skipping synthetic workload" "$LOG"; do
+    kill -0 "$PID" 2>/dev/null || { echo "Backend exited, see $LOG"; exit 1; }
+    sleep 1
+done
+grep -h "Synthetic workload ready" "$LOG" || true
+
+java scripts/LoadDriver.java http://localhost:8080 "$CONCURRENCY" "$DURATION" \
+    --scenario="$SCENARIO" --groups=existing --warmup=5
@@ -0,0 +1,85 @@
+package com.fairsplit.service;
+
+import com.fairsplit.dto.ExpenseResponse;
+import com.fairsplit.model.Expense;
+import com.fairsplit.model.SplitType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Equal splitting and response mapping for a batch of expenses, as done when adding
+ * and listing expenses. Each invocation processes {@code expenseCount} expenses split
+ * across {@code groupSize} participants.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpenseSplitBenchmark {
+
+    @Param({"3", "10", "100"})
+    int groupSize;
+
+    @Param({"100", "10000"})
+    int expenseCount;
+
+    private ExpenseService expenseService;
+    private List<String> participants;
+    private long[] amountsCents;
+    private List<Expense> expenses;
+
+    @Setup
+    public void setUp() {
+        // Only the pure helpers are exercised, so no collaborators are needed
+        expenseService = new ExpenseService(null, null, null, null, null, null, null);
+
+        participants = new ArrayList<>(groupSize);
+        for (int i = 0; i < groupSize; i++) {
+            participants.add("Member " + i);
+        }
+
+        Random random = new Random(42);
+        amountsCents = new long[expenseCount];
+        expenses = new ArrayList<>(expenseCount);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < expenseCount; i++) {
+            amountsCents[i] = 1 + random.nextInt(100_000);
+
+            Expense expense = new Expense();
+            expense.setGroupId("benchmark");
+            expense.setDescription("Expense " + i);
+            expense.setAmountCents(amountsCents[i]);
+            expense.setPayerId(random.nextInt(groupSize));
+            expense.setDate(today.minusDays(random.nextInt(365)));
+            // Equal splits store no contributions; mapping derives them from the participants
+            expense.setSplitType(SplitType.EQUAL);
+            expense.prePersist();
+            expenses.add(expense);
+        }
+    }
+
+    @Benchmark
+    public void calculateEqualSplit(Blackhole blackhole) {
+        for (long amountCents : amountsCents) {
+            Map<String, Long> split = expenseService.calculateEqualSplit(amountCents, participants);
+            blackhole.consume(split);
+        }
+    }
+
+    @Benchmark
+    public void mapToResponse(Blackhole blackhole) {
+        for (Expense expense : expenses) {
+            ExpenseResponse response = expenseService.mapToResponse(expense, participants);
+            blackhole.consume(response);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.fairsplit.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The greedy transfer matcher on its own, up to very large groups. Balances are random
+ * and distinct, with the last member absorbing the remainder so they sum to zero.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GreedySettlementBenchmark {
+
+    @Param({"1000", "100000"})
+    int members;
+
+    private String[] participants;
+    private long[] balances;
+
+    @Setup
+    public void setUp() {
+        participants = new String[members];
+        balances = new long[members];
+        Random random = new Random(42);
+        long sum = 0;
+        for (int i = 0; i < members - 1; i++) {
+            participants[i] = "Member " + i;
+            balances[i] = random.nextInt(2_000_000) - 1_000_000;
+            sum += balances[i];
+        }
+        participants[members - 1] = "Member " + (members - 1);
+        balances[members - 1] = -sum;
+    }
+
+    @Benchmark
+    public Object optimize() {
+        return GreedySettlementOptimizer.optimize(participants, balances);
+    }
+}
@@ -0,0 +1,85 @@
+package com.fairsplit.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The settlement pipeline after the ledger rows are loaded: net balances, member
+ * balances and the greedy transfer matcher. Balances come from {@code expenseCount}
+ * random equal-split expenses across {@code groupSize} members, so larger expense
+ * counts give wider-ranging balances.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SettlementBenchmark {
+
+    @Param({"3", "10", "100", "1000"})
+    int groupSize;
+
+    @Param({"100", "10000"})
+    int expenseCount;
+
+    private SettlementService settlementService;
+    private String[] participants;
+    private long[] paidCents;
+    private long[] owedCents;
+    private long[] netBalances;
+
+    @Setup
+    public void setUp() {
+        // Only the pure helpers are exercised, so no collaborators are needed
+        settlementService = new SettlementService(null, null, null, null, null, null);
+
+        long[] paid = new long[groupSize];
+        long[] owed = new long[groupSize];
+        Random random = new Random(42);
+        for (int i = 0; i < expenseCount; i++) {
+            long amountCents = 1 + random.nextInt(100_000);
+            paid[random.nextInt(groupSize)] += amountCents;
+
+            // Same remainder rule as Money.splitEqually
+            long share = amountCents / groupSize;
+            for (int j = 0; j < groupSize; j++) {
+                owed[j] += share;
+            }
+            owed[groupSize - 1] += amountCents - share * groupSize;
+        }
+
+        // Ledger totals arrive indexed by participant id
+        participants = new String[groupSize];
+        for (int i = 0; i < groupSize; i++) {
+            participants[i] = "Member " + i;
+        }
+        paidCents = paid;
+        owedCents = owed;
+        netBalances = settlementService.calculateNetBalances(paidCents, owedCents);
+    }
+
+    @Benchmark
+    public long[] calculateNetBalances() {
+        return settlementService.calculateNetBalances(paidCents, owedCents);
+    }
+
+    @Benchmark
+    public Object getMemberBalances() {
+        return settlementService.getMemberBalances(participants, paidCents, owedCents);
+    }
+
+    @Benchmark
+    public Object optimizeTransactions() {
+        return settlementService.optimizeTransactions(participants, netBalances);
+    }
+
+    @Benchmark
+    public void settleFromLedger(Blackhole blackhole) {
+        // Everything calculateSettlements does once the ledger rows are in memory
+        blackhole.consume(settlementService.settle(participants, paidCents, owedCents, false));
+    }
+}
@@ -0,0 +1,34 @@
+package com.fairsplit.config;
+
+import com.fairsplit.journal.ExpenseJournal;
+import com.fairsplit.journal.SnapshotStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+@Profile("journal")
+@EnableScheduling
+public class JournalConfig {
+
+    @Bean(destroyMethod = "close")
+    public ExpenseJournal expenseJournal(@Value("${fairsplit.journal.directory}") Path directory,
+                                         @Value("${fairsplit.journal.segment-size:64MB}") DataSize segmentSize,
+                                         @Value("${fairsplit.journal.sync:true}") boolean sync) throws IOException {
+        return new ExpenseJournal(directory, Math.toIntExact(segmentSize.toBytes()), sync);
+    }
+
+    @Bean
+    public SnapshotStore snapshotStore(@Value("${fairsplit.journal.directory}") Path directory,
+                                       @Value("${fairsplit.journal.snapshots-retained:3}") int retained,
+                                       JdbcTemplate jdbcTemplate) throws IOException {
+        return new SnapshotStore(directory, jdbcTemplate, retained);
+    }
+}
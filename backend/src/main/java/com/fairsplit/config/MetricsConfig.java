@@ -0,0 +1,34 @@
+package com.fairsplit.config;
+
+import com.fairsplit.metrics.HibernateRequestStatistics;
+import com.fairsplit.metrics.RequestStatisticsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    @Bean
+    public HibernatePropertiesCustomizer requestStatisticsCustomizer() {
+        HibernateRequestStatistics statistics = new HibernateRequestStatistics();
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, statistics);
+            properties.put(AvailableSettings.INTERCEPTOR, statistics);
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestStatisticsInterceptor(meterRegistry))
+                .addPathPatterns("/api/**");
+    }
+}
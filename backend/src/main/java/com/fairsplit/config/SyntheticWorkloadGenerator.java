@@ -0,0 +1,191 @@
+package com.fairsplit.config;
+
+import com.fairsplit.dto.BatchExpenseResponse;
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.model.Money;
+import com.fairsplit.repository.GroupRepository;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Fills an empty database with a production-like workload for local load and scale testing:
+ * {@code groups} groups of {@code participants} members sharing {@code expenses} expenses.
+ * <p>
+ * Both group sizes and payers follow a Zipf distribution, so a few groups hold most expenses
+ * and a few members pay for most of them. Amounts are log-normal, a share of expenses is split
+ * among a random subset of members, and dates advance through the last {@code days} days with
+ * the odd backdated entry. Everything is written through the regular services in batches, so
+ * the ledger, the daily index and the journal are maintained exactly as in production.
+ */
+@Component
+@Profile("synthetic")
+@RequiredArgsConstructor
+@Slf4j
+public class SyntheticWorkloadGenerator {
+
+    private static final String[] DESCRIPTIONS = {
+            "Groceries", "Dinner", "Taxi", "Rent", "Utilities", "Coffee", "Tickets", "Fuel", "Hotel", "Drinks"
+    };
+
+    private final GroupService groupService;
+    private final ExpenseService expenseService;
+    private final GroupRepository groupRepository;
+
+    @Value("${fairsplit.synthetic.groups:100}")
+    private int groups;
+
+    @Value("${fairsplit.synthetic.participants:8}")
+    private int participants;
+
+    @Value("${fairsplit.synthetic.expenses:100000}")
+    private int expenses;
+
+    @Value("${fairsplit.synthetic.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${fairsplit.synthetic.group-skew:1.0}")
+    private double groupSkew;
+
+    @Value("${fairsplit.synthetic.payer-skew:1.2}")
+    private double payerSkew;
+
+    @Value("${fairsplit.synthetic.custom-split-ratio:0.3}")
+    private double customSplitRatio;
+
+    @Value("${fairsplit.synthetic.days:365}")
+    private int days;
+
+    @Value("${fairsplit.synthetic.seed:42}")
+    private long seed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void generate() {
+        // Like the sample data, only an empty (or freshly recovered empty) database is filled
+        if (groupRepository.count() > 0) {
+            log.info("Existing data found, skipping synthetic workload");
+            return;
+        }
+
+        log.info("Generating synthetic workload: {} groups of {} participants, {} expenses",
+                groups, participants, expenses);
+        long start = System.nanoTime();
+        Random random = new Random(seed);
+        List<String> members = new ArrayList<>(participants);
+        for (int i = 1; i <= participants; i++) {
+            members.add("Member " + i);
+        }
+
+        int[] perGroup = new int[groups];
+        Zipf groupSizes = new Zipf(groups, groupSkew);
+        for (int i = 0; i < expenses; i++) {
+            perGroup[groupSizes.sample(random)]++;
+        }
+
+        Zipf payers = new Zipf(participants, payerSkew);
+        long created = 0;
+        long rejected = 0;
+        for (int g = 0; g < groups; g++) {
+            String groupId = groupService.createGroup(
+                    new GroupRequest(String.format("Synthetic %05d", g + 1), members)).getGroupId();
+
+            // Each group ranks its members differently, so the heaviest payer varies by group
+            List<String> ranking = new ArrayList<>(members);
+            Collections.shuffle(ranking, random);
+
+            for (int first = 0; first < perGroup[g]; first += batchSize) {
+                int size = Math.min(batchSize, perGroup[g] - first);
+                List<ExpenseRequest> batch = new ArrayList<>(size);
+                for (int i = first; i < first + size; i++) {
+                    batch.add(expense(random, ranking, payers, i, perGroup[g]));
+                }
+                BatchExpenseResponse response = expenseService.addExpenses(groupId, batch);
+                created += response.getCreated();
+                rejected += response.getRejected();
+            }
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Synthetic workload ready: {} groups, {} expenses ({} rejected) in {} ms, {} expenses/s",
+                groups, created, rejected, millis, millis > 0 ? created * 1000 / millis : created);
+    }
+
+    private ExpenseRequest expense(Random random, List<String> ranking, Zipf payers, int index, int count) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setDescription(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)] + " #" + (index + 1));
+
+        // Log-normal around $25, between $1 and $10,000
+        long cents = Math.round(Math.exp(Math.log(2_500) + random.nextGaussian()));
+        cents = Math.max(100, Math.min(1_000_000, cents));
+        request.setAmount(Money.toAmount(cents));
+        request.setPaidBy(ranking.get(payers.sample(random)));
+
+        // Mostly in order of entry; one in ten is entered up to a week late
+        int day = (int) ((long) index * days / Math.max(count, 1));
+        int late = random.nextInt(10) == 0 ? random.nextInt(7) : 0;
+        request.setDate(LocalDate.now().minusDays(Math.min(days, days - day + late)));
+
+        if (ranking.size() > 1 && random.nextDouble() < customSplitRatio) {
+            request.setContributions(customSplit(random, ranking, cents));
+        }
+        return request;
+    }
+
+    // Splits the amount at random among two or more members, summing exactly to it
+    private static Map<String, Double> customSplit(Random random, List<String> ranking, long cents) {
+        List<String> shuffled = new ArrayList<>(ranking);
+        Collections.shuffle(shuffled, random);
+        int sharers = (int) Math.min(2 + random.nextInt(ranking.size() - 1), cents);
+
+        long[] cuts = new long[sharers + 1];
+        cuts[sharers] = cents;
+        for (int i = 1; i < sharers; i++) {
+            cuts[i] = 1 + (long) (random.nextDouble() * (cents - 1));
+        }
+        Arrays.sort(cuts);
+
+        Map<String, Double> contributions = new HashMap<>(sharers * 2);
+        for (int i = 0; i < sharers; i++) {
+            long share = cuts[i + 1] - cuts[i];
+            if (share > 0) {
+                contributions.put(shuffled.get(i), Money.toAmount(share));
+            }
+        }
+        return contributions;
+    }
+
+    /**
+     * Ranks 0..n-1 with probability proportional to 1 / (rank + 1)^skew, by inverse transform
+     * over the precomputed cumulative distribution.
+     */
+    private static final class Zipf {
+        private final double[] cumulative;
+
+        private Zipf(int n, double skew) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int rank = 0; rank < n; rank++) {
+                total += 1 / Math.pow(rank + 1, skew);
+                cumulative[rank] = total;
+            }
+            for (int rank = 0; rank < n; rank++) {
+                cumulative[rank] /= total;
+            }
+        }
+
+        private int sample(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
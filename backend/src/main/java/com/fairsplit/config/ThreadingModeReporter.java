@@ -0,0 +1,47 @@
+package com.fairsplit.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs which thread model serves requests, so a deployment can confirm the mode it was
+ * configured for. Spring Boot silently falls back to platform threads when virtual threads are
+ * asked for on a pre-21 runtime, so startup fails instead of serving in the wrong mode.
+ */
+@Component
+// Checked before the server accepts requests, even with lazy initialization
+@Lazy(false)
+@Slf4j
+@RequiredArgsConstructor
+public class ThreadingModeReporter {
+
+    private static final int VIRTUAL_THREADS_JAVA_VERSION = 21;
+
+    private final Environment environment;
+
+    @PostConstruct
+    void checkRuntime() {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        int runtime = Runtime.version().feature();
+        if (requested && runtime < VIRTUAL_THREADS_JAVA_VERSION) {
+            throw new IllegalStateException("Virtual threads (spring.threads.virtual.enabled, the virtual-threads "
+                    + "profile) need Java " + VIRTUAL_THREADS_JAVA_VERSION + "+, but this is Java " + runtime);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportThreadingMode() {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Request handling runs on virtual threads");
+        } else {
+            log.info("Request handling runs on platform threads");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.fairsplit.controller;
+
+import com.fairsplit.dto.CacheStatsResponse;
+import com.fairsplit.dto.LedgerReconciliationResponse;
+import com.fairsplit.service.BalanceLedgerService;
+import com.fairsplit.service.GroupCache;
+import com.fairsplit.service.SettlementCache;
+import com.fairsplit.service.SettlementReportService;
+import com.fairsplit.service.SettlementService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+    
+    private final BalanceLedgerService balanceLedgerService;
+    private final SettlementCache settlementCache;
+    private final GroupCache groupCache;
+    private final SettlementService settlementService;
+    private final SettlementReportService settlementReportService;
+    private final ObjectMapper objectMapper;
+    
+    @GetMapping("/ledger/verify")
+    public ResponseEntity<List<LedgerReconciliationResponse>> verifyLedger() {
+        return ResponseEntity.ok(balanceLedgerService.verifyAll());
+    }
+    
+    @GetMapping("/ledger/verify/{groupId}")
+    public ResponseEntity<LedgerReconciliationResponse> verifyLedger(@PathVariable String groupId) {
+        return ResponseEntity.ok(balanceLedgerService.verify(groupId));
+    }
+    
+    @PostMapping("/ledger/rebuild")
+    public ResponseEntity<List<LedgerReconciliationResponse>> rebuildLedger() {
+        return ResponseEntity.ok(balanceLedgerService.rebuildAll());
+    }
+    
+    @PostMapping("/ledger/rebuild/{groupId}")
+    public ResponseEntity<LedgerReconciliationResponse> rebuildLedger(@PathVariable String groupId) {
+        return ResponseEntity.ok(balanceLedgerService.rebuild(groupId));
+    }
+    
+    @GetMapping("/caches/settlements")
+    public ResponseEntity<CacheStatsResponse> getSettlementCacheStats() {
+        return ResponseEntity.ok(settlementCache.getStats());
+    }
+    
+    @GetMapping("/caches/groups")
+    public ResponseEntity<CacheStatsResponse> getGroupCacheStats() {
+        return ResponseEntity.ok(groupCache.getStats());
+    }
+    
+    @GetMapping(value = "/settlements/report", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getSettlementReport(
+            @RequestParam(defaultValue = "greedy") String mode) {
+        // Reject bad modes before the response is committed
+        boolean exact = settlementService.parseExactMode(mode);
+        
+        ObjectWriter writer = objectMapper.writer();
+        StreamingResponseBody body = out -> settlementReportService.reportAll(exact, group -> {
+            try {
+                out.write(writer.writeValueAsBytes(group));
+                out.write('\n');
+                // Each group is complete on its own, so readers need not wait for the rest
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
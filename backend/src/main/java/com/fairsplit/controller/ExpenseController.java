@@ -1,16 +1,29 @@
 package com.fairsplit.controller;
 
+import com.fairsplit.dto.BatchExpenseResponse;
+import com.fairsplit.dto.ExpensePageResponse;
 import com.fairsplit.dto.ExpenseRequest;
 import com.fairsplit.dto.ExpenseResponse;
 import com.fairsplit.dto.SettlementResponse;
 import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupVersionTracker;
 import com.fairsplit.service.SettlementService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -20,6 +33,8 @@ public class ExpenseController {
     
     private final ExpenseService expenseService;
     private final SettlementService settlementService;
+    private final GroupVersionTracker groupVersionTracker;
+    private final ObjectMapper objectMapper;
     
     @PostMapping("/expenses")
     public ResponseEntity<ExpenseResponse> addExpense(
@@ -29,15 +44,77 @@ public class ExpenseController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    @PostMapping("/expenses:batch")
+    public ResponseEntity<BatchExpenseResponse> addExpenses(
+            @PathVariable String groupId,
+            @RequestBody List<ExpenseRequest> requests) {
+        BatchExpenseResponse response = expenseService.addExpenses(groupId, requests);
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/expenses")
-    public ResponseEntity<List<ExpenseResponse>> getExpenses(@PathVariable String groupId) {
+    public ResponseEntity<List<ExpenseResponse>> getExpenses(@PathVariable String groupId, WebRequest request) {
+        // The version is read before the data, so a tag can only ever be older than its body.
+        // A deleted or unknown group is a 404 whatever tag the client sends
+        String etag = groupVersionTracker.groupTag(groupId);
+        expenseService.checkGroupExists(groupId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<ExpenseResponse> expenses = expenseService.getExpensesByGroup(groupId);
-        return ResponseEntity.ok(expenses);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(expenses);
+    }
+    
+    @GetMapping(value = "/expenses", params = "limit")
+    public ResponseEntity<ExpensePageResponse> getExpensePage(
+            @PathVariable String groupId,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        // Each page is its own URL, so one tag per group version is enough
+        String etag = groupVersionTracker.groupTag(groupId);
+        expenseService.checkGroupExists(groupId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        ExpensePageResponse page = expenseService.getExpensePage(groupId, limit, cursor);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(page);
+    }
+    
+    @GetMapping(value = "/expenses/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamExpenses(@PathVariable String groupId) {
+        // Reject unknown groups before the response is committed
+        expenseService.checkGroupExists(groupId);
+        
+        ObjectWriter writer = objectMapper.writer();
+        StreamingResponseBody body = out -> expenseService.streamExpenses(groupId, expense -> {
+            try {
+                out.write(writer.writeValueAsBytes(expense));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
     
     @GetMapping("/settlements")
-    public ResponseEntity<SettlementResponse> getSettlements(@PathVariable String groupId) {
-        SettlementResponse response = settlementService.calculateSettlements(groupId);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<SettlementResponse> getSettlements(
+            @PathVariable String groupId,
+            @RequestParam(defaultValue = "greedy") String mode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        // Reject bad parameters even when the client holds a current tag
+        settlementService.parseExactMode(mode);
+        settlementService.checkPeriod(asOf, from, to);
+        String etag = groupVersionTracker.groupTag(groupId);
+        expenseService.checkGroupExists(groupId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        SettlementResponse response = settlementService.calculateSettlements(groupId, mode, asOf, from, to);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(response);
     }
 }
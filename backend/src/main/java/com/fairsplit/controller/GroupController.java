@@ -3,11 +3,17 @@ package com.fairsplit.controller;
 import com.fairsplit.dto.GroupRequest;
 import com.fairsplit.dto.GroupResponse;
 import com.fairsplit.service.GroupService;
+import com.fairsplit.service.GroupUpdateBroadcaster;
+import com.fairsplit.service.GroupVersionTracker;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -17,6 +23,8 @@ import java.util.List;
 public class GroupController {
     
     private final GroupService groupService;
+    private final GroupUpdateBroadcaster groupUpdateBroadcaster;
+    private final GroupVersionTracker groupVersionTracker;
     
     @PostMapping
     public ResponseEntity<GroupResponse> createGroup(@Valid @RequestBody GroupRequest request) {
@@ -25,15 +33,26 @@ public class GroupController {
     }
     
     @GetMapping
-    public ResponseEntity<List<GroupResponse>> getAllGroups() {
+    public ResponseEntity<List<GroupResponse>> getAllGroups(WebRequest request) {
+        // Answered with 304 before touching the database when the client's copy is current
+        String etag = groupVersionTracker.allGroupsTag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<GroupResponse> groups = groupService.getAllGroups();
-        return ResponseEntity.ok(groups);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(groups);
     }
     
     @GetMapping("/{groupId}")
-    public ResponseEntity<GroupResponse> getGroupById(@PathVariable String groupId) {
+    public ResponseEntity<GroupResponse> getGroupById(@PathVariable String groupId, WebRequest request) {
+        String etag = groupVersionTracker.groupTag(groupId);
+        // After the tag: a group deleted since is gone here, so its old tag cannot match
+        groupService.checkGroupExists(groupId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         GroupResponse response = groupService.getGroupById(groupId);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(response);
     }
     
     @DeleteMapping("/{groupId}")
@@ -41,4 +60,10 @@ public class GroupController {
         groupService.deleteGroup(groupId);
         return ResponseEntity.ok().build();
     }
+    
+    // Pushes expenses-added, balances-changed and group-deleted events as they are committed
+    @GetMapping(value = "/{groupId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamUpdates(@PathVariable String groupId) {
+        return groupUpdateBroadcaster.subscribe(groupId);
+    }
 }
@@ -0,0 +1,31 @@
+package com.fairsplit.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchExpenseResponse {
+    
+    private Integer received;
+    private Integer created;
+    private Integer rejected;
+    private List<ItemResult> results;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ItemResult {
+        private Integer index;
+        private String status;
+        private String expenseId;
+        private String error;
+    }
+}
@@ -0,0 +1,19 @@
+package com.fairsplit.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpensePageResponse {
+    
+    private List<ExpenseResponse> expenses;
+    private String nextCursor;
+    private Boolean hasMore;
+}
@@ -19,6 +19,6 @@ public class GroupRequest {
     private String groupName;
     
     @NotNull(message = "Participants list is required")
-    @Size(min = 1, max = 10, message = "Group must have between 1 and 10 participants")
+    @Size(min = 1, message = "Group must have at least 1 participant")
     private List<@NotBlank(message = "Participant name cannot be blank") String> participants;
 }
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -19,5 +20,7 @@ public class GroupResponse {
     private List<String> participants;
     private Integer participantCount;
     private Double totalExpense;
+    private Long expenseCount;
+    private LocalDate lastExpenseDate;
     private LocalDateTime createdAt;
 }
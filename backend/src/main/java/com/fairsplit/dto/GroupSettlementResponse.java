@@ -0,0 +1,26 @@
+package com.fairsplit.dto;
+
+import com.fairsplit.model.SettlementStrategy;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One group's line in the all-groups settlement report.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupSettlementResponse {
+    
+    private String groupId;
+    private String groupName;
+    private List<SettlementResponse.Settlement> settlements;
+    private Map<String, SettlementResponse.MemberBalance> memberBalances;
+    private SettlementStrategy strategy;
+}
@@ -0,0 +1,30 @@
+package com.fairsplit.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pushed to a group's subscribers after a committed change. Carries the new expenses (when
+ * few enough), the balances of the members they affect, and the group's settlements.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupUpdateResponse {
+    
+    private String groupId;
+    // Increases with every change; clients can ignore updates older than what they have
+    private Long version;
+    private Integer expenseCount;
+    private Double totalExpense;
+    // Null when too many expenses were added at once; fetch them instead
+    private List<ExpenseResponse> expenses;
+    private Map<String, SettlementResponse.MemberBalance> memberBalances;
+    private List<SettlementResponse.Settlement> settlements;
+}
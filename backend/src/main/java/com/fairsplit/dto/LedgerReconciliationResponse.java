@@ -0,0 +1,32 @@
+package com.fairsplit.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerReconciliationResponse {
+    
+    private String groupId;
+    private Boolean consistent;
+    private Boolean dailyIndexConsistent;
+    private Boolean rebuilt;
+    private Integer expenseCount;
+    private List<Mismatch> mismatches;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Mismatch {
+        private String participant;
+        private SettlementResponse.MemberBalance expected;
+        private SettlementResponse.MemberBalance actual;
+    }
+}
@@ -1,5 +1,6 @@
 package com.fairsplit.dto;
 
+import com.fairsplit.model.SettlementStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,6 +17,7 @@ public class SettlementResponse {
     
     private List<Settlement> settlements;
     private Map<String, MemberBalance> memberBalances;
+    private SettlementStrategy strategy;
     
     @Data
     @NoArgsConstructor
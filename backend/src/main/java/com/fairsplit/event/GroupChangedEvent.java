@@ -0,0 +1,47 @@
+package com.fairsplit.event;
+
+import com.fairsplit.model.Expense;
+import com.fairsplit.model.Group;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Published whenever a write changes what a group's reads return. Listeners that
+ * derive state from committed data should use {@code @TransactionalEventListener}.
+ * <p>
+ * Creation and expense events also carry what was written, for listeners that
+ * record the change itself rather than just react to it.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@ToString(exclude = {"group", "expenses"})
+public class GroupChangedEvent {
+    
+    public enum ChangeType {
+        GROUP_CREATED,
+        EXPENSES_ADDED,
+        LEDGER_REBUILT,
+        GROUP_DELETED
+    }
+    
+    private final String groupId;
+    private final ChangeType changeType;
+    private final Group group;
+    private final List<Expense> expenses;
+    
+    public GroupChangedEvent(String groupId, ChangeType changeType) {
+        this(groupId, changeType, null, List.of());
+    }
+    
+    public static GroupChangedEvent groupCreated(Group group) {
+        return new GroupChangedEvent(group.getGroupId(), ChangeType.GROUP_CREATED, group, List.of());
+    }
+    
+    public static GroupChangedEvent expensesAdded(String groupId, List<Expense> expenses) {
+        return new GroupChangedEvent(groupId, ChangeType.EXPENSES_ADDED, null, expenses);
+    }
+}
@@ -0,0 +1,338 @@
+package com.fairsplit.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of committed changes, kept in memory-mapped segment files named after the
+ * sequence number of their first record. A record is laid out as
+ * {@code [length:int][crc32:int][sequence:long][timestamp:long][type:byte][payload]}, the
+ * checksum covering everything after itself. Segments are preallocated and zero-filled, so a
+ * zero length marks the end of the records.
+ * <p>
+ * A torn or corrupt record at the tail of the newest segment is cut off on open; anywhere
+ * else it is an error.
+ */
+@Slf4j
+public class ExpenseJournal implements Closeable {
+
+    static final int HEADER_BYTES = 25;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean sync;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Path segment;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private volatile long lastSequence;
+
+    /**
+     * @param segmentBytes preallocated size of each segment; a larger record gets a segment of its own
+     * @param sync         force every record to disk before {@link #append} returns
+     */
+    public ExpenseJournal(Path directory, int segmentBytes, boolean sync) throws IOException {
+        if (segmentBytes < HEADER_BYTES + 4) {
+            throw new IllegalArgumentException("Journal segment size is too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.sync = sync;
+
+        Files.createDirectories(directory);
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            openSegment(1, segmentBytes);
+        } else {
+            Path newest = segments.get(segments.size() - 1);
+            openExisting(newest, firstSequence(newest));
+        }
+    }
+
+    /**
+     * Appends one record and returns its sequence number.
+     */
+    public long append(JournalEntry.Type type, byte[] payload) {
+        if (payload.length == 0) {
+            throw new IllegalArgumentException("Journal payload must not be empty");
+        }
+        int size = HEADER_BYTES + payload.length;
+        lock.lock();
+        try {
+            ensureOpen();
+            // Leave room for the end marker after the record
+            if (buffer.capacity() - position < size + 4) {
+                closeSegment();
+                openSegment(lastSequence + 1, Math.max(segmentBytes, size + 4));
+            }
+            long sequence = lastSequence + 1;
+            buffer.putLong(position + 8, sequence);
+            buffer.putLong(position + 16, System.currentTimeMillis());
+            buffer.put(position + 24, type.code());
+            buffer.put(position + HEADER_BYTES, payload);
+            buffer.putInt(position + 4, checksum(buffer, position, payload.length));
+            buffer.putInt(position, payload.length);
+            if (sync) {
+                buffer.force(position, size);
+            }
+            position += size;
+            lastSequence = sequence;
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the journal in " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Sequence number of the oldest record still kept; older segments are deleted once a
+     * snapshot covers them.
+     */
+    public long firstSequence() throws IOException {
+        lock.lock();
+        try {
+            return firstSequence(segments().get(0));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts a new segment unless the current one is still empty, so everything up to the
+     * returned sequence number lives in segments that are no longer written.
+     */
+    public long roll() throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            if (position > 0) {
+                closeSegment();
+                openSegment(lastSequence + 1, segmentBytes);
+            }
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Feeds every record after {@code afterSequence}, in order, to the consumer, stopping at
+     * the first one appended after {@code until} (when given). Returns the sequence number of
+     * the last record fed, or {@code afterSequence} if there were none.
+     */
+    public long replay(long afterSequence, Instant until, Consumer<JournalEntry> consumer) throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            if (lastSequence < afterSequence) {
+                throw new IllegalStateException("Journal ends at " + lastSequence
+                        + " but replay starts after " + afterSequence);
+            }
+            long expected = afterSequence + 1;
+            List<Path> segments = segments();
+            for (int i = 0; i < segments.size(); i++) {
+                // Skip segments that end before the starting point
+                if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= expected) {
+                    continue;
+                }
+                long first = firstSequence(segments.get(i));
+                if (first > expected) {
+                    throw new IllegalStateException("Journal is missing records " + expected + " to " + (first - 1));
+                }
+                ByteBuffer records = segments.get(i).equals(segment) ? buffer.duplicate() : map(segments.get(i));
+                int offset = 0;
+                for (long sequence = first; offset + HEADER_BYTES <= records.capacity(); sequence++) {
+                    int length = records.getInt(offset);
+                    if (length == 0) {
+                        break;
+                    }
+                    if (!isValid(records, offset, length, sequence)) {
+                        throw new IllegalStateException("Corrupt journal record " + sequence + " in " + segments.get(i));
+                    }
+                    if (sequence >= expected) {
+                        JournalEntry entry = read(records, offset, length);
+                        if (until != null && entry.timestamp().isAfter(until)) {
+                            return expected - 1;
+                        }
+                        consumer.accept(entry);
+                        expected = sequence + 1;
+                    }
+                    offset += HEADER_BYTES + length;
+                }
+            }
+            return expected - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments whose records all have a sequence number up to {@code sequence}.
+     * The segment being written is kept.
+     */
+    public void deleteSegmentsThrough(long sequence) throws IOException {
+        lock.lock();
+        try {
+            List<Path> segments = segments();
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (firstSequence(segments.get(i + 1)) - 1 <= sequence && !segments.get(i).equals(segment)) {
+                    Files.delete(segments.get(i));
+                    log.debug("Deleted journal segment {}", segments.get(i).getFileName());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves every segment into {@code target} and continues with an empty segment starting at
+     * {@code nextSequence}. Used after recovering to an earlier point in time.
+     */
+    public void archiveTo(Path target, long nextSequence) throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            closeSegment();
+            Files.createDirectories(target);
+            for (Path file : segments()) {
+                Files.move(file, target.resolve(file.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+            }
+            openSegment(nextSequence, segmentBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (channel != null) {
+                closeSegment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void openSegment(long firstSequence, int size) throws IOException {
+        segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        position = 0;
+        lastSequence = firstSequence - 1;
+    }
+
+    private void openExisting(Path file, long firstSequence) throws IOException {
+        segment = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        position = 0;
+        lastSequence = firstSequence - 1;
+
+        // Walk the records; the first invalid one is a write that did not complete
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (!isValid(buffer, position, length, lastSequence + 1)) {
+                log.warn("Truncating journal {} at offset {} after record {}: incomplete or corrupt record",
+                        file.getFileName(), position, lastSequence);
+                for (int i = position; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.force();
+                break;
+            }
+            position += HEADER_BYTES + length;
+            lastSequence++;
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        buffer.force();
+        channel.close();
+        channel = null;
+        buffer = null;
+    }
+
+    private void ensureOpen() {
+        if (channel == null) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    private static boolean isValid(ByteBuffer records, int offset, int length, long sequence) {
+        if (length < 0 || (long) offset + HEADER_BYTES + length > records.capacity()) {
+            return false;
+        }
+        return records.getLong(offset + 8) == sequence
+                && records.getInt(offset + 4) == checksum(records, offset, length);
+    }
+
+    private static int checksum(ByteBuffer records, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(records.slice(offset + 8, HEADER_BYTES - 8 + length));
+        return (int) crc.getValue();
+    }
+
+    private static JournalEntry read(ByteBuffer records, int offset, int length) {
+        byte[] payload = new byte[length];
+        records.get(offset + HEADER_BYTES, payload);
+        return new JournalEntry(records.getLong(offset + 8),
+                Instant.ofEpochMilli(records.getLong(offset + 16)),
+                JournalEntry.Type.of(records.get(offset + 24)),
+                payload);
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            // Zero-padded names sort in sequence order
+            return new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    private static long firstSequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,150 @@
+package com.fairsplit.journal;
+
+import com.fairsplit.model.Expense;
+import com.fairsplit.model.Group;
+import com.fairsplit.model.SplitType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary payloads of journal records. Only what was written is recorded; balances are
+ * derived again by the ledger on replay. Expenses refer to members by participant id,
+ * their position in the group's creation record.
+ */
+final class JournalCodec {
+    
+    private JournalCodec() {
+    }
+    
+    static byte[] encodeGroup(Group group) {
+        return encode(out -> {
+            out.writeUTF(group.getGroupId());
+            out.writeUTF(group.getGroupName());
+            writeDateTime(out, group.getCreatedAt());
+            out.writeInt(group.getParticipants().size());
+            for (String participant : group.getParticipants()) {
+                out.writeUTF(participant);
+            }
+        });
+    }
+    
+    static Group decodeGroup(byte[] payload) {
+        return decode(payload, in -> {
+            Group group = new Group();
+            group.setGroupId(in.readUTF());
+            group.setGroupName(in.readUTF());
+            group.setCreatedAt(readDateTime(in));
+            int count = in.readInt();
+            List<String> participants = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                participants.add(in.readUTF());
+            }
+            group.setParticipants(participants);
+            return group;
+        });
+    }
+    
+    static byte[] encodeExpenses(String groupId, List<Expense> expenses) {
+        return encode(out -> {
+            out.writeUTF(groupId);
+            out.writeInt(expenses.size());
+            for (Expense expense : expenses) {
+                out.writeUTF(expense.getExpenseId());
+                out.writeUTF(expense.getDescription());
+                out.writeLong(expense.getAmountCents());
+                out.writeInt(expense.getPayerId());
+                out.writeLong(expense.getDate().toEpochDay());
+                out.writeByte(expense.getSplitType().ordinal());
+                writeDateTime(out, expense.getCreatedAt());
+                out.writeInt(expense.getContributions().size());
+                for (Map.Entry<Integer, Long> contribution : expense.getContributions().entrySet()) {
+                    out.writeInt(contribution.getKey());
+                    out.writeLong(contribution.getValue());
+                }
+            }
+        });
+    }
+    
+    static List<Expense> decodeExpenses(byte[] payload) {
+        return decode(payload, in -> {
+            String groupId = in.readUTF();
+            int count = in.readInt();
+            List<Expense> expenses = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Expense expense = new Expense();
+                expense.setGroupId(groupId);
+                expense.setExpenseId(in.readUTF());
+                expense.setDescription(in.readUTF());
+                expense.setAmountCents(in.readLong());
+                expense.setPayerId(in.readInt());
+                expense.setDate(LocalDate.ofEpochDay(in.readLong()));
+                expense.setSplitType(SplitType.values()[in.readByte()]);
+                expense.setCreatedAt(readDateTime(in));
+                int contributions = in.readInt();
+                Map<Integer, Long> amounts = new HashMap<>(contributions * 2);
+                for (int c = 0; c < contributions; c++) {
+                    amounts.put(in.readInt(), in.readLong());
+                }
+                expense.setContributions(amounts);
+                expenses.add(expense);
+            }
+            return expenses;
+        });
+    }
+    
+    static byte[] encodeGroupId(String groupId) {
+        return encode(out -> out.writeUTF(groupId));
+    }
+    
+    // Every payload starts with the group id
+    static String decodeGroupId(byte[] payload) {
+        return decode(payload, in -> in.readUTF());
+    }
+    
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+    
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+    
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+    
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+    
+    private static byte[] encode(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static <T> T decode(byte[] payload, Reader<T> reader) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.fairsplit.journal;
+
+import java.time.Instant;
+
+/**
+ * One record of the journal as read back: its sequence number, when it was appended,
+ * and the encoded change (see {@link JournalCodec}).
+ */
+public record JournalEntry(long sequence, Instant timestamp, Type type, byte[] payload) {
+    
+    public enum Type {
+        GROUP_CREATED(1),
+        // Code 2 held expenses with participant names, before members had ids
+        EXPENSES_ADDED(4),
+        GROUP_DELETED(3);
+        
+        private final byte code;
+        
+        Type(int code) {
+            this.code = (byte) code;
+        }
+        
+        byte code() {
+            return code;
+        }
+        
+        static Type of(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalStateException("Unknown journal record type: " + code);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.fairsplit.journal;
+
+import com.fairsplit.event.GroupChangedEvent;
+import com.fairsplit.model.Expense;
+import com.fairsplit.model.Group;
+import com.fairsplit.repository.DailyBalanceRepository;
+import com.fairsplit.repository.ExpenseRepository;
+import com.fairsplit.repository.GroupRepository;
+import com.fairsplit.service.BalanceLedgerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal-backed persistence: every change is appended to the {@link ExpenseJournal}, snapshots
+ * of all tables are taken periodically, and at startup the newest snapshot plus the journal tail
+ * are loaded into the (in-memory) database before requests are served.
+ * <p>
+ * Appends are the last step before a write's transaction commits, so a write the journal cannot
+ * record is rolled back and its client gets an error, rather than committed and later lost.
+ * A snapshot may therefore miss writes whose records it would otherwise cover; it is labelled
+ * with the sequence before the oldest record still committing, and replay skips what it holds.
+ * <p>
+ * Setting {@code fairsplit.journal.recover-to} restores the state as of that instant instead.
+ * Everything after it is moved to a {@code before-<millis>} directory and the journal continues
+ * from the recovered state.
+ */
+@Service
+@Profile("journal")
+// Recovery must finish before requests are served, even with lazy initialization
+@Lazy(false)
+@Slf4j
+@RequiredArgsConstructor
+public class JournalService {
+
+    private static final String RECOVERED_TO_FILE = "recovered-to";
+
+    private final ExpenseJournal journal;
+    private final SnapshotStore snapshots;
+    private final GroupRepository groupRepository;
+    private final ExpenseRepository expenseRepository;
+    private final DailyBalanceRepository dailyBalanceRepository;
+    private final BalanceLedgerService balanceLedgerService;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${fairsplit.journal.directory}")
+    private Path directory;
+
+    @Value("${fairsplit.journal.recover-to:}")
+    private String recoverTo;
+
+    // Not synchronized: a snapshot does JDBC and file I/O, which would pin a virtual thread
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    // Makes appending and registering a record one step, as seen by a snapshot rolling the journal
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // Sequences of records whose transactions have not completed yet
+    private final ConcurrentSkipListSet<Long> committing = new ConcurrentSkipListSet<>();
+
+    private long lastSnapshotSequence = -1;
+
+    @PostConstruct
+    public void recover() throws IOException {
+        long start = System.nanoTime();
+        if (groupRepository.count() > 0) {
+            throw new IllegalStateException("The journal profile restores into an empty database, "
+                    + "but groups already exist; do not combine it with a durable database");
+        }
+
+        Instant target = recoveryTarget();
+        Optional<SnapshotStore.SnapshotInfo> snapshot = snapshots.latest(target);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        long rows = 0;
+        long afterSequence = 0;
+        if (snapshot.isPresent()) {
+            rows = transaction.execute(status -> snapshots.load(snapshot.get()));
+            afterSequence = snapshot.get().sequence();
+        } else if (journal.firstSequence() > 1) {
+            throw new IllegalStateException("No snapshot " + (target != null ? "taken by " + target : "found")
+                    + " and the journal before record " + journal.firstSequence() + " was already deleted");
+        }
+
+        Replay replay = new Replay(transaction);
+        long lastSequence = journal.replay(afterSequence, target, replay::apply);
+        replay.finish();
+        log.info("Recovered {} snapshot rows (through record {}) and replayed {} journal records in {} ms",
+                rows, afterSequence, lastSequence - afterSequence, (System.nanoTime() - start) / 1_000_000);
+
+        lastSnapshotSequence = afterSequence;
+        if (target != null) {
+            // Later records describe a history that no longer applies; keep them aside, not in the way
+            Path archive = directory.resolve("before-" + System.currentTimeMillis());
+            journal.archiveTo(archive, lastSequence + 1);
+            snapshots.archiveTo(archive);
+            Files.writeString(directory.resolve(RECOVERED_TO_FILE), target.toString());
+            lastSnapshotSequence = -1;
+            snapshot();
+            log.warn("Recovered to {}; later journal records and snapshots were moved to {}", target, archive);
+        }
+    }
+
+    // A failed append fails the commit: nothing is committed that a restart would not restore
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onGroupChanged(GroupChangedEvent event) {
+        if (event.getChangeType() == GroupChangedEvent.ChangeType.LEDGER_REBUILT) {
+            // Rebuilds only recompute the ledger, which replay derives anyway
+            return;
+        }
+        // Constraint violations surface here rather than at commit, after the record was written
+        groupRepository.flush();
+        JournalEntry.Type type;
+        byte[] payload;
+        switch (event.getChangeType()) {
+            case GROUP_CREATED -> {
+                type = JournalEntry.Type.GROUP_CREATED;
+                payload = JournalCodec.encodeGroup(event.getGroup());
+            }
+            case EXPENSES_ADDED -> {
+                type = JournalEntry.Type.EXPENSES_ADDED;
+                payload = JournalCodec.encodeExpenses(event.getGroupId(), event.getExpenses());
+            }
+            case GROUP_DELETED -> {
+                type = JournalEntry.Type.GROUP_DELETED;
+                payload = JournalCodec.encodeGroupId(event.getGroupId());
+            }
+            default -> {
+                return;
+            }
+        }
+
+        appendLock.lock();
+        try {
+            long sequence = journal.append(type, payload);
+            // Without a transaction the write was committed before the event was published
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                committing.add(sequence);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        committing.remove(sequence);
+                    }
+                });
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fairsplit.journal.snapshot-interval:PT5M}",
+            initialDelayString = "${fairsplit.journal.snapshot-interval:PT5M}")
+    public void scheduledSnapshot() {
+        snapshot();
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    /**
+     * Snapshots every table unless nothing was recorded since the last snapshot, then drops
+     * snapshots and journal segments that are no longer needed.
+     */
+    public void snapshot() {
+        snapshotLock.lock();
+        try {
+            if (journal.lastSequence() == lastSnapshotSequence) {
+                return;
+            }
+            long start = System.nanoTime();
+            long rolled;
+            long sequence;
+            appendLock.lock();
+            try {
+                rolled = journal.roll();
+                // A write still committing may be missing from the snapshot, so replay starts before it
+                sequence = committing.isEmpty() ? rolled : Math.min(rolled, committing.first() - 1);
+            } finally {
+                appendLock.unlock();
+            }
+
+            // Records after the sequence may or may not be in the snapshot; replay skips what is there
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+            SnapshotStore.SnapshotInfo snapshot = transaction.execute(status -> snapshots.write(sequence));
+
+            journal.deleteSegmentsThrough(snapshots.prune());
+            lastSnapshotSequence = rolled;
+            log.info("Wrote {} in {} ms", snapshot.file().getFileName(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not snapshot the journal in " + directory, e);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private Instant recoveryTarget() throws IOException {
+        if (recoverTo.isBlank()) {
+            return null;
+        }
+        Instant target = Instant.parse(recoverTo);
+        Path marker = directory.resolve(RECOVERED_TO_FILE);
+        if (Files.exists(marker) && Files.readString(marker).equals(target.toString())) {
+            log.warn("Already recovered to {}; starting normally. Remove fairsplit.journal.recover-to", target);
+            return null;
+        }
+        return target;
+    }
+
+    /**
+     * Applies journal records on top of a snapshot. Records the snapshot already contains are
+     * skipped, and nothing is journaled or published again.
+     */
+    private class Replay {
+
+        private final TransactionTemplate transaction;
+        // Expenses appended ahead of their group's creation record by a concurrent commit
+        private final Map<String, List<Expense>> pending = new HashMap<>();
+
+        Replay(TransactionTemplate transaction) {
+            this.transaction = transaction;
+        }
+
+        void apply(JournalEntry entry) {
+            transaction.executeWithoutResult(status -> {
+                switch (entry.type()) {
+                    case GROUP_CREATED -> createGroup(JournalCodec.decodeGroup(entry.payload()));
+                    case EXPENSES_ADDED -> addExpenses(JournalCodec.decodeGroupId(entry.payload()),
+                            JournalCodec.decodeExpenses(entry.payload()));
+                    case GROUP_DELETED -> deleteGroup(JournalCodec.decodeGroupId(entry.payload()));
+                }
+            });
+        }
+
+        void finish() {
+            pending.forEach((groupId, expenses) ->
+                    log.warn("Dropped {} journaled expenses of group {}, which was never created", expenses.size(), groupId));
+        }
+
+        private void createGroup(Group group) {
+            if (!groupRepository.existsById(group.getGroupId())) {
+                entityManager.persist(group);
+                balanceLedgerService.openAccounts(group.getGroupId(), group.getParticipants());
+            }
+            List<Expense> waiting = pending.remove(group.getGroupId());
+            if (waiting != null) {
+                addExpenses(group.getGroupId(), waiting);
+            }
+        }
+
+        private void addExpenses(String groupId, List<Expense> expenses) {
+            Optional<Group> group = groupRepository.findById(groupId);
+            if (group.isEmpty()) {
+                pending.computeIfAbsent(groupId, id -> new ArrayList<>()).addAll(expenses);
+                return;
+            }
+
+            List<String> ids = expenses.stream().map(Expense::getExpenseId).toList();
+            Set<String> existing = new HashSet<>(expenseRepository.findExistingIds(ids));
+            List<Expense> missing = new ArrayList<>(expenses.size());
+            for (Expense expense : expenses) {
+                if (!existing.contains(expense.getExpenseId())) {
+                    entityManager.persist(expense);
+                    missing.add(expense);
+                }
+            }
+            balanceLedgerService.applyExpenses(group.get(), missing);
+        }
+
+        private void deleteGroup(String groupId) {
+            pending.remove(groupId);
+            if (groupRepository.existsById(groupId)) {
+                expenseRepository.deleteContributionsByGroupId(groupId);
+                expenseRepository.deleteAllByGroupId(groupId);
+                balanceLedgerService.deleteBalances(groupId);
+                dailyBalanceRepository.deleteAllByGroupId(groupId);
+                groupRepository.deleteById(groupId);
+            }
+        }
+    }
+}
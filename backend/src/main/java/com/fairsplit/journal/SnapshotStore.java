@@ -0,0 +1,317 @@
+package com.fairsplit.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary copies of every table, each tagged with the journal sequence number it covers.
+ * A file holds a header ({@code magic, version, sequence}), the rows of each table in
+ * foreign-key order, the time it was taken, and a CRC32 of everything before it.
+ * <p>
+ * Reads and loads run in the caller's transaction.
+ */
+@Slf4j
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x46534E50;
+    private static final int VERSION = 4;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int INSERT_BATCH = 1000;
+
+    private enum Column { STRING, INT, LONG, DATE, TIMESTAMP }
+
+    private record Table(String name, List<String> columns, List<Column> types) {
+
+        static Table of(String name, Object... columnsAndTypes) {
+            List<String> columns = new ArrayList<>();
+            List<Column> types = new ArrayList<>();
+            for (int i = 0; i < columnsAndTypes.length; i += 2) {
+                columns.add((String) columnsAndTypes[i]);
+                types.add((Column) columnsAndTypes[i + 1]);
+            }
+            return new Table(name, columns, types);
+        }
+
+        String select() {
+            return "select " + String.join(", ", columns) + " from " + name;
+        }
+
+        String insert() {
+            return "insert into " + name + " (" + String.join(", ", columns) + ") values ("
+                    + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+        }
+    }
+
+    // Parents before children, so rows load with the foreign keys in place.
+    // The generated group_name_key is left to the database.
+    private static final List<Table> TABLES = List.of(
+            Table.of("groups", "group_id", Column.STRING, "group_name", Column.STRING,
+                    "created_at", Column.TIMESTAMP, "equal_share_cents", Column.LONG),
+            Table.of("group_participants", "group_id", Column.STRING, "participant_id", Column.INT,
+                    "participant_name", Column.STRING),
+            Table.of("expenses", "expense_id", Column.STRING, "group_id", Column.STRING,
+                    "description", Column.STRING, "amount_cents", Column.LONG, "payer_id", Column.INT,
+                    "date", Column.DATE, "split_type", Column.STRING, "created_at", Column.TIMESTAMP),
+            Table.of("expense_contributions", "expense_id", Column.STRING, "participant_id", Column.INT,
+                    "amount_cents", Column.LONG),
+            Table.of("group_balances", "balance_id", Column.STRING, "group_id", Column.STRING,
+                    "participant_id", Column.INT, "total_paid_cents", Column.LONG,
+                    "total_owed_cents", Column.LONG, "net_balance_cents", Column.LONG),
+            Table.of("daily_balances", "balance_id", Column.STRING, "group_id", Column.STRING,
+                    "participant_id", Column.INT, "balance_date", Column.DATE,
+                    "total_paid_cents", Column.LONG, "total_owed_cents", Column.LONG),
+            Table.of("group_tombstones", "group_id", Column.STRING, "deleted_at", Column.TIMESTAMP));
+
+    public record SnapshotInfo(Path file, long sequence, Instant takenAt) {
+    }
+
+    private final Path directory;
+    private final JdbcTemplate jdbcTemplate;
+    private final int retained;
+
+    public SnapshotStore(Path directory, JdbcTemplate jdbcTemplate, int retained) throws IOException {
+        if (retained < 1) {
+            throw new IllegalArgumentException("At least one snapshot must be retained");
+        }
+        this.directory = directory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.retained = retained;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Writes the current contents of every table as the snapshot for {@code sequence}.
+     * The file only appears under its final name once complete.
+     */
+    public SnapshotInfo write(long sequence) {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        Instant takenAt;
+        try {
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+                CheckedOutputStream checked = new CheckedOutputStream(file, new CRC32());
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(sequence);
+                for (Table table : TABLES) {
+                    jdbcTemplate.query(table.select(), (ResultSet row) -> {
+                        try {
+                            out.writeBoolean(true);
+                            writeRow(out, table, row);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    out.writeBoolean(false);
+                }
+                // Every row read was committed by now, so recovery to any later time may start here.
+                // Writes still committing when the journal was rolled are replayed from the sequence.
+                takenAt = Instant.now();
+                out.writeLong(takenAt.toEpochMilli());
+                out.flush();
+                new DataOutputStream(file).writeLong(checked.getChecksum().getValue());
+                file.getChannel().force(true);
+            }
+            // Closed and on disk; only now does it get its final name
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write snapshot " + target, e);
+        }
+        return new SnapshotInfo(target, sequence, takenAt);
+    }
+
+    /**
+     * Inserts the rows of a snapshot into empty tables and returns how many there were.
+     */
+    public long load(SnapshotInfo snapshot) {
+        long rows = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot.file()), 1 << 16))) {
+            in.skipNBytes(16);
+            for (Table table : TABLES) {
+                String insert = table.insert();
+                List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+                while (in.readBoolean()) {
+                    batch.add(readRow(in, table));
+                    if (batch.size() == INSERT_BATCH) {
+                        jdbcTemplate.batchUpdate(insert, batch);
+                        rows += batch.size();
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(insert, batch);
+                    rows += batch.size();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read snapshot " + snapshot.file(), e);
+        }
+        return rows;
+    }
+
+    /**
+     * The newest intact snapshot taken at or before {@code until} (any time when null).
+     */
+    public Optional<SnapshotInfo> latest(Instant until) throws IOException {
+        List<SnapshotInfo> snapshots = list();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            SnapshotInfo snapshot = snapshots.get(i);
+            if (until != null && snapshot.takenAt().isAfter(until)) {
+                continue;
+            }
+            if (isIntact(snapshot.file())) {
+                return Optional.of(snapshot);
+            }
+            log.warn("Ignoring snapshot {}: checksum mismatch", snapshot.file().getFileName());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Deletes all but the newest retained snapshots and returns the sequence number of the
+     * oldest one kept; journal records up to it are no longer needed.
+     */
+    public long prune() throws IOException {
+        List<SnapshotInfo> snapshots = list();
+        int excess = snapshots.size() - retained;
+        for (int i = 0; i < excess; i++) {
+            Files.delete(snapshots.get(i).file());
+        }
+        return snapshots.isEmpty() ? 0 : snapshots.get(Math.max(excess, 0)).sequence();
+    }
+
+    public void archiveTo(Path target) throws IOException {
+        Files.createDirectories(target);
+        for (SnapshotInfo snapshot : list()) {
+            Files.move(snapshot.file(), target.resolve(snapshot.file().getFileName()), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private List<SnapshotInfo> list() throws IOException {
+        List<SnapshotInfo> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().startsWith(PREFIX)
+                    && file.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    ByteBuffer header = ByteBuffer.allocate(16);
+                    ByteBuffer trailer = ByteBuffer.allocate(8);
+                    channel.read(header, 0);
+                    channel.read(trailer, channel.size() - 16);
+                    if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                        log.warn("Ignoring {}: not a version {} snapshot", file.getFileName(), VERSION);
+                        continue;
+                    }
+                    snapshots.add(new SnapshotInfo(file, header.getLong(8), Instant.ofEpochMilli(trailer.getLong(0))));
+                } catch (IOException e) {
+                    log.warn("Ignoring unreadable snapshot {}: {}", file.getFileName(), e.getMessage());
+                }
+            }
+        }
+        snapshots.sort(Comparator.comparingLong(SnapshotInfo::sequence));
+        return snapshots;
+    }
+
+    private static boolean isIntact(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 32) {
+                return false;
+            }
+            CRC32 crc = new CRC32();
+            ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+            for (long offset = 0; offset < size - 8; ) {
+                chunk.clear().limit((int) Math.min(chunk.capacity(), size - 8 - offset));
+                offset += channel.read(chunk, offset);
+                crc.update(chunk.flip());
+            }
+            ByteBuffer expected = ByteBuffer.allocate(8);
+            channel.read(expected, size - 8);
+            return crc.getValue() == expected.getLong(0);
+        }
+    }
+
+    private static void writeRow(DataOutputStream out, Table table, ResultSet row) throws IOException {
+        try {
+            for (int i = 0; i < table.types().size(); i++) {
+                int index = i + 1;
+                switch (table.types().get(i)) {
+                    case STRING -> writeNullable(out, row.getString(index), out::writeUTF);
+                    case INT -> {
+                        int value = row.getInt(index);
+                        writeNullable(out, row.wasNull() ? null : value, out::writeInt);
+                    }
+                    case LONG -> {
+                        long value = row.getLong(index);
+                        writeNullable(out, row.wasNull() ? null : value, out::writeLong);
+                    }
+                    case DATE -> writeNullable(out, row.getObject(index, LocalDate.class),
+                            date -> out.writeLong(date.toEpochDay()));
+                    case TIMESTAMP -> writeNullable(out, row.getObject(index, LocalDateTime.class), time -> {
+                        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+                        out.writeInt(time.getNano());
+                    });
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read " + table.name() + " for a snapshot", e);
+        }
+    }
+
+    private static Object[] readRow(DataInputStream in, Table table) throws IOException {
+        Object[] values = new Object[table.types().size()];
+        for (int i = 0; i < values.length; i++) {
+            if (!in.readBoolean()) {
+                continue;
+            }
+            values[i] = switch (table.types().get(i)) {
+                case STRING -> in.readUTF();
+                case INT -> in.readInt();
+                case LONG -> in.readLong();
+                case DATE -> LocalDate.ofEpochDay(in.readLong());
+                case TIMESTAMP -> LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            };
+        }
+        return values;
+    }
+
+    private interface ValueWriter<T> {
+        void write(T value) throws IOException;
+    }
+
+    private static <T> void writeNullable(DataOutputStream out, T value, ValueWriter<T> writer) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writer.write(value);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.fairsplit.metrics;
+
+import com.fairsplit.event.GroupChangedEvent;
+import com.fairsplit.model.Expense;
+import com.fairsplit.model.SplitType;
+import com.fairsplit.repository.ExpenseRepository;
+import com.fairsplit.repository.GroupRepository;
+import com.fairsplit.service.GroupCache;
+import com.fairsplit.service.SettlementCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application-level meters: settlement latency by group size, expenses added per split type,
+ * stored group and expense counts, and settlement and group cache activity.
+ * <p>
+ * The stored counts are not queried on scrape: they are counted every
+ * {@code stored-counts-refresh} and follow committed creations, deletions and expenses in
+ * between, so scraping costs the same however large the tables grow.
+ */
+@Component
+// Registered at startup so every meter is scraped from the first request on, lazy or not
+@Lazy(false)
+@Slf4j
+public class FairSplitMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final GroupRepository groupRepository;
+    private final ExpenseRepository expenseRepository;
+    private final Map<SplitType, Counter> expensesAdded = new EnumMap<>(SplitType.class);
+    private final AtomicLong storedGroups = new AtomicLong();
+    private final AtomicLong storedExpenses = new AtomicLong();
+
+    @Value("${fairsplit.metrics.stored-counts-refresh:5m}")
+    private Duration storedCountsRefresh;
+
+    private ScheduledExecutorService refresher;
+
+    public FairSplitMetrics(MeterRegistry meterRegistry, GroupRepository groupRepository,
+                            ExpenseRepository expenseRepository, SettlementCache settlementCache,
+                            GroupCache groupCache) {
+        this.meterRegistry = meterRegistry;
+        this.groupRepository = groupRepository;
+        this.expenseRepository = expenseRepository;
+
+        for (SplitType splitType : SplitType.values()) {
+            expensesAdded.put(splitType, Counter.builder("fairsplit.expenses.added")
+                    .description("Expenses added")
+                    .tag("splitType", splitType.name())
+                    .register(meterRegistry));
+        }
+
+        Gauge.builder("fairsplit.groups.stored", storedGroups, AtomicLong::get)
+                .description("Groups currently stored")
+                .register(meterRegistry);
+        Gauge.builder("fairsplit.expenses.stored", storedExpenses, AtomicLong::get)
+                .description("Expenses currently stored")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("fairsplit.settlement.cache.requests", settlementCache, c -> c.getStats().getHitCount())
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("fairsplit.settlement.cache.requests", settlementCache, c -> c.getStats().getMissCount())
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("fairsplit.settlement.cache.evictions", settlementCache, c -> c.getStats().getEvictionCount())
+                .register(meterRegistry);
+        Gauge.builder("fairsplit.settlement.cache.size", settlementCache, c -> c.getStats().getSize())
+                .register(meterRegistry);
+
+        FunctionCounter.builder("fairsplit.group.cache.requests", groupCache, c -> c.getStats().getHitCount())
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("fairsplit.group.cache.requests", groupCache, c -> c.getStats().getMissCount())
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("fairsplit.group.cache.evictions", groupCache, c -> c.getStats().getEvictionCount())
+                .register(meterRegistry);
+        Gauge.builder("fairsplit.group.cache.size", groupCache, c -> c.getStats().getSize())
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        // Off the startup thread, which lazy initialization keeps free of queries
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stored-counts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshStoredCounts,
+                0, storedCountsRefresh.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.shutdownNow();
+    }
+
+    // Also picks up what no event announces: seeding, replay, and background purges
+    private void refreshStoredCounts() {
+        try {
+            storedGroups.set(groupRepository.count());
+            storedExpenses.set(expenseRepository.count());
+        } catch (RuntimeException e) {
+            log.debug("Could not refresh stored counts: {}", e.getMessage());
+        }
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordSettlement(Timer.Sample sample, int groupSize, boolean exact, boolean cached) {
+        sample.stop(Timer.builder("fairsplit.settlements")
+                .description("Settlement calculation latency")
+                .tag("groupSize", groupSizeBucket(groupSize))
+                .tag("mode", exact ? "exact" : "greedy")
+                .tag("cache", cached ? "hit" : "miss")
+                .register(meterRegistry));
+    }
+
+    // Counted once committed, so a write that is rolled back and retried counts once
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroupChanged(GroupChangedEvent event) {
+        switch (event.getChangeType()) {
+            case GROUP_CREATED -> storedGroups.incrementAndGet();
+            // Its expenses may still be purging; the next refresh counts what is left
+            case GROUP_DELETED -> storedGroups.decrementAndGet();
+            default -> {
+            }
+        }
+        for (Expense expense : event.getExpenses()) {
+            expensesAdded.get(expense.getSplitType()).increment();
+        }
+        storedExpenses.addAndGet(event.getExpenses().size());
+    }
+
+    // Bounded tag values keep the number of timer series fixed
+    static String groupSizeBucket(int groupSize) {
+        if (groupSize <= 10) {
+            return "1-10";
+        }
+        if (groupSize <= 100) {
+            return "11-100";
+        }
+        if (groupSize <= 1000) {
+            return "101-1000";
+        }
+        return "1000+";
+    }
+}
@@ -0,0 +1,28 @@
+package com.fairsplit.metrics;
+
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+/**
+ * Feeds {@link RequestStatistics} from Hibernate: every prepared statement passes through the
+ * inspector and every hydrated entity through the interceptor. Hibernate's own statistics are
+ * factory-wide, so they cannot attribute work to a single request.
+ */
+public class HibernateRequestStatistics implements StatementInspector, Interceptor {
+
+    // Interceptor is Serializable; this class holds no state of its own
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String inspect(String sql) {
+        RequestStatistics.recordStatement();
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        RequestStatistics.recordEntityLoad();
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package com.fairsplit.metrics;
+
+/**
+ * Per-thread tally of the SQL statements issued and entities loaded while serving one request.
+ * Counting only happens between {@link #begin()} and {@link #end()}, so startup seeding and
+ * background work are ignored.
+ */
+public final class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long entitiesLoaded;
+
+    private RequestStatistics() {
+    }
+
+    public static void begin() {
+        CURRENT.set(new RequestStatistics());
+    }
+
+    public static RequestStatistics end() {
+        RequestStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics;
+    }
+
+    static void recordStatement() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+        }
+    }
+
+    static void recordEntityLoad() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entitiesLoaded++;
+        }
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+}
@@ -0,0 +1,68 @@
+package com.fairsplit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many SQL statements and entity loads each API request caused, tagged like
+ * {@code http.server.requests} so a query-count regression shows up next to its latency.
+ * <p>
+ * Asynchronous requests (event streams, streamed listings, the settlement report) are recorded
+ * when the handler returns and hands the response to another thread: statements issued on that
+ * thread are not counted, and the container thread is released with nothing left behind.
+ */
+@RequiredArgsConstructor
+public class RequestStatisticsInterceptor implements AsyncHandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The dispatch that completes an asynchronous request was recorded when it started
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            RequestStatistics.begin();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // afterCompletion runs later on another thread, if at all
+        record(request, RequestStatistics.end());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        record(request, RequestStatistics.end());
+    }
+
+    private void record(HttpServletRequest request, RequestStatistics statistics) {
+        if (statistics == null) {
+            return;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("fairsplit.request.statements")
+                .description("SQL statements issued per API request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(statistics.getStatements());
+        DistributionSummary.builder("fairsplit.request.entities.loaded")
+                .description("Entities loaded per API request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(statistics.getEntitiesLoaded());
+    }
+}
@@ -0,0 +1,51 @@
+package com.fairsplit.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * One member's ledger totals over every expense dated on or before {@code balanceDate}. Rows
+ * exist only for days the member's totals changed; the balance as of any other day is the
+ * latest row before it.
+ */
+@Entity
+@Table(name = "daily_balances",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"group_id", "participant_id", "balance_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyBalance {
+
+    // Participant id of the rows holding the per-head share of equal splits, owed by every member
+    public static final int EQUAL_SHARE = -1;
+
+    @Id
+    private String balanceId;
+
+    @Column(name = "group_id", nullable = false)
+    private String groupId;
+
+    @Column(name = "participant_id", nullable = false)
+    private int participantId;
+
+    @Column(name = "balance_date", nullable = false)
+    private LocalDate balanceDate;
+
+    @Column(nullable = false)
+    private long totalPaidCents;
+
+    @Column(nullable = false)
+    private long totalOwedCents;
+
+    @PrePersist
+    public void prePersist() {
+        if (balanceId == null) {
+            balanceId = UUID.randomUUID().toString();
+        }
+    }
+}
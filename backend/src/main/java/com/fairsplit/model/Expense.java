@@ -12,7 +12,8 @@ import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "expenses")
+@Table(name = "expenses", indexes = @Index(name = "idx_expenses_group_date",
+        columnList = "group_id, date, created_at, expense_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,19 +29,23 @@ public class Expense {
     private String description;
     
     @Column(nullable = false)
-    private Double amount;
+    private long amountCents;
     
+    // Participant id of the payer within the group
     @Column(nullable = false)
-    private String paidBy;
+    private int payerId;
     
     @Column(nullable = false)
     private LocalDate date;
     
+    // Only custom splits are stored, keyed by participant id; equal splits are derived from the
+    // group's participants
     @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "expense_contributions", joinColumns = @JoinColumn(name = "expense_id"))
-    @MapKeyColumn(name = "participant")
-    @Column(name = "amount")
-    private Map<String, Double> contributions = new HashMap<>();
+    @CollectionTable(name = "expense_contributions", joinColumns = @JoinColumn(name = "expense_id"),
+            indexes = @Index(name = "idx_expense_contributions_expense", columnList = "expense_id"))
+    @MapKeyColumn(name = "participant_id")
+    @Column(name = "amount_cents")
+    private Map<Integer, Long> contributions = new HashMap<>();
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -1,17 +1,24 @@
 package com.fairsplit.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "groups")
+@Table(name = "groups", indexes = @Index(name = "idx_groups_name_key", columnList = "group_name_key", unique = true))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,17 +30,70 @@ public class Group {
     @Column(unique = true, nullable = false)
     private String groupName;
     
+    // Upper-cased copy maintained by the database, so the case-insensitive lookup can use an index.
+    // The index is unique: names differing only in case cannot both be inserted, however close.
+    @Column(name = "group_name_key", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (upper(group_name))")
+    private String groupNameKey;
+    
+    // A member's position in this list is their participant id, which expenses and ledger rows
+    // store instead of the name. Members never change once the group exists.
     @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "group_participants", joinColumns = @JoinColumn(name = "group_id"))
-    @Column(name = "participant_name")
+    @CollectionTable(name = "group_participants", joinColumns = @JoinColumn(name = "group_id"),
+            indexes = @Index(name = "idx_group_participants_group", columnList = "group_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_group_participants_name",
+                    columnNames = {"group_id", "participant_name"}))
+    @OrderColumn(name = "participant_id")
+    @Column(name = "participant_name", nullable = false)
     private List<String> participants = new ArrayList<>();
     
+    // Sum of the per-head share of every equal-split expense, owed by each member alike.
+    // Kept once per group so an equal split does not touch every member's ledger row.
+    @Column(nullable = false)
+    private long equalShareCents;
+    
     @Column(nullable = false)
     private LocalDateTime createdAt;
     
     @Transient
     private Double totalExpense;
     
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile Map<String, Integer> participantIds;
+    
+    public void setParticipants(List<String> participants) {
+        this.participants = participants;
+        this.participantIds = null;
+    }
+    
+    public boolean hasParticipant(String name) {
+        return participantId(name) >= 0;
+    }
+    
+    /**
+     * Constant-time name to id lookup, -1 for a non-member; the lookup map is built on first use.
+     */
+    public int participantId(String name) {
+        Map<String, Integer> lookup = participantIds;
+        if (lookup == null) {
+            lookup = new HashMap<>(participants.size() * 2);
+            for (int i = 0; i < participants.size(); i++) {
+                lookup.put(participants.get(i), i);
+            }
+            participantIds = lookup;
+        }
+        Integer id = lookup.get(name);
+        return id != null ? id : -1;
+    }
+    
+    public String participantName(int participantId) {
+        return participants.get(participantId);
+    }
+    
     @PrePersist
     public void prePersist() {
         if (groupId == null) {
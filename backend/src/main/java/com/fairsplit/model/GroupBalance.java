@@ -0,0 +1,42 @@
+package com.fairsplit.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Entity
+@Table(name = "group_balances",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"group_id", "participant_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBalance {
+    
+    @Id
+    private String balanceId;
+    
+    @Column(name = "group_id", nullable = false)
+    private String groupId;
+    
+    @Column(name = "participant_id", nullable = false)
+    private int participantId;
+    
+    @Column(nullable = false)
+    private long totalPaidCents;
+    
+    @Column(nullable = false)
+    private long totalOwedCents;
+    
+    @Column(nullable = false)
+    private long netBalanceCents;
+    
+    @PrePersist
+    public void prePersist() {
+        if (balanceId == null) {
+            balanceId = UUID.randomUUID().toString();
+        }
+    }
+}
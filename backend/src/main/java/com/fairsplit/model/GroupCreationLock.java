@@ -0,0 +1,23 @@
+package com.fairsplit.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The single row group creations lock before counting groups, so the group limit holds across
+ * every instance sharing the database. Other writes never take it.
+ */
+@Entity
+@Table(name = "group_creation_lock")
+@Data
+@NoArgsConstructor
+public class GroupCreationLock {
+    
+    public static final int ID = 1;
+    
+    @Id
+    private Integer id;
+}
@@ -0,0 +1,29 @@
+package com.fairsplit.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A deleted group whose expenses are still being purged in the background.
+ * The group row itself is already gone; the tombstone is removed with the last expense.
+ */
+@Entity
+@Table(name = "group_tombstones")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupTombstone {
+    
+    @Id
+    private String groupId;
+    
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,91 @@
+package com.fairsplit.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Money is stored and computed as a primitive {@code long} count of cents.
+ * <p>
+ * Conversion to and from {@code double} happens only at the JSON boundary; everything
+ * in between (entities, split math, ledger, settlements) is exact integer arithmetic.
+ */
+public final class Money {
+    
+    // Largest amount whose count of cents a double still holds exactly
+    private static final double MAX_AMOUNT = (1L << 53) / 100.0;
+    
+    private Money() {
+    }
+    
+    /**
+     * Rounds an amount to cents, half-up on its decimal representation.
+     *
+     * @throws IllegalArgumentException if the amount is not a number or too large to hold in cents
+     */
+    public static long toCents(double amount) {
+        if (!(Math.abs(amount) <= MAX_AMOUNT)) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+        // Amounts that already have at most two decimals need no BigDecimal
+        long cents = Math.round(amount * 100);
+        if (cents / 100.0 == amount) {
+            return cents;
+        }
+        return BigDecimal.valueOf(amount)
+                .setScale(2, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+    }
+    
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+    
+    public static Map<String, Long> toCents(Map<String, Double> amounts) {
+        Map<String, Long> cents = new HashMap<>();
+        for (Map.Entry<String, Double> entry : amounts.entrySet()) {
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("Amount is required for " + entry.getKey());
+            }
+            cents.put(entry.getKey(), toCents(entry.getValue()));
+        }
+        return cents;
+    }
+    
+    public static Map<String, Double> toAmounts(Map<String, Long> cents) {
+        Map<String, Double> amounts = new HashMap<>();
+        for (Map.Entry<String, Long> entry : cents.entrySet()) {
+            amounts.put(entry.getKey(), toAmount(entry.getValue()));
+        }
+        return amounts;
+    }
+    
+    /**
+     * Share each participant owes when a total is split equally: the total divided by
+     * the head count, rounded half-up to the cent.
+     */
+    public static long equalShare(long totalCents, int participantCount) {
+        long doubled = 2 * totalCents + (totalCents >= 0 ? participantCount : -participantCount);
+        return doubled / (2L * participantCount);
+    }
+    
+    /**
+     * Splits a total equally; the last participant absorbs the rounding remainder so the
+     * shares always add up to the total exactly.
+     */
+    public static Map<String, Long> splitEqually(long totalCents, List<String> participants) {
+        int participantCount = participants.size();
+        long share = equalShare(totalCents, participantCount);
+        
+        Map<String, Long> splits = new LinkedHashMap<>();
+        for (int i = 0; i < participantCount - 1; i++) {
+            splits.put(participants.get(i), share);
+        }
+        splits.put(participants.get(participantCount - 1), totalCents - share * (participantCount - 1));
+        return splits;
+    }
+}
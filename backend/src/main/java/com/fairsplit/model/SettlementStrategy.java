@@ -0,0 +1,7 @@
+package com.fairsplit.model;
+
+public enum SettlementStrategy {
+    GREEDY,
+    EXACT,
+    GREEDY_FALLBACK
+}
@@ -0,0 +1,11 @@
+package com.fairsplit.repository;
+
+import java.time.LocalDate;
+
+/**
+ * A member's running totals as of a day, read from the daily balance index. A record rather
+ * than the entity, so reads always see the stored values and never a stale managed instance.
+ */
+public record CumulativeBalance(int participantId, LocalDate balanceDate,
+                                long totalPaidCents, long totalOwedCents) {
+}
@@ -0,0 +1,69 @@
+package com.fairsplit.repository;
+
+import com.fairsplit.model.DailyBalance;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailyBalanceRepository extends JpaRepository<DailyBalance, String> {
+
+    // Every member's latest row on or before a day, the equal-share row included. The latest
+    // days are found in one grouped pass rather than a subquery per candidate row.
+    @Query("select new com.fairsplit.repository.CumulativeBalance(d.participantId, d.balanceDate, " +
+            "d.totalPaidCents, d.totalOwedCents) from DailyBalance d " +
+            "where d.groupId = :groupId and (d.participantId, d.balanceDate) in " +
+            "(select l.participantId, max(l.balanceDate) from DailyBalance l " +
+            "where l.groupId = :groupId and l.balanceDate <= :date group by l.participantId)")
+    List<CumulativeBalance> findAllAsOf(@Param("groupId") String groupId, @Param("date") LocalDate date);
+
+    // Every member's latest row, the running totals over the whole history
+    @Query("select new com.fairsplit.repository.CumulativeBalance(d.participantId, d.balanceDate, " +
+            "d.totalPaidCents, d.totalOwedCents) from DailyBalance d " +
+            "where d.groupId = :groupId and (d.participantId, d.balanceDate) in " +
+            "(select l.participantId, max(l.balanceDate) from DailyBalance l " +
+            "where l.groupId = :groupId group by l.participantId)")
+    List<CumulativeBalance> findAllLatest(@Param("groupId") String groupId);
+
+    // Members' rows from a day on, and each member's latest row before it: what a write dated
+    // on or after that day starts from and may have to carry forward into
+    @Query("select new com.fairsplit.repository.CumulativeBalance(d.participantId, d.balanceDate, " +
+            "d.totalPaidCents, d.totalOwedCents) from DailyBalance d " +
+            "where d.groupId = :groupId and d.participantId in :participantIds " +
+            "and (d.balanceDate >= :date or (d.participantId, d.balanceDate) in " +
+            "(select l.participantId, max(l.balanceDate) from DailyBalance l where l.groupId = :groupId " +
+            "and l.participantId in :participantIds and l.balanceDate < :date group by l.participantId))")
+    List<CumulativeBalance> findFrom(@Param("groupId") String groupId,
+                                     @Param("participantIds") Collection<Integer> participantIds,
+                                     @Param("date") LocalDate date);
+
+    // Backdated expenses carry forward into every later day's running totals
+    @Modifying
+    @Query("update DailyBalance d set d.totalPaidCents = d.totalPaidCents + :paid, " +
+            "d.totalOwedCents = d.totalOwedCents + :owed " +
+            "where d.groupId = :groupId and d.participantId = :participantId and d.balanceDate >= :date")
+    int applyDeltaFrom(@Param("groupId") String groupId,
+                       @Param("participantId") int participantId,
+                       @Param("date") LocalDate date,
+                       @Param("paid") long paidCents,
+                       @Param("owed") long owedCents);
+
+    @Modifying
+    @Query("delete from DailyBalance d where d.groupId = :groupId")
+    int deleteAllByGroupId(@Param("groupId") String groupId);
+
+    // One chunk of a background purge, located through the group's unique key
+    @Query("select d.balanceId from DailyBalance d where d.groupId = :groupId")
+    List<String> findIdsByGroupId(@Param("groupId") String groupId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from DailyBalance d where d.balanceId in :balanceIds")
+    int deleteAllByBalanceIds(@Param("balanceIds") Collection<String> balanceIds);
+}
@@ -0,0 +1,11 @@
+package com.fairsplit.repository;
+
+import java.time.LocalDate;
+
+/**
+ * A group's equal-split totals over the expenses of one day, computed in the database.
+ */
+public interface DatedEqualSplitTotals extends EqualSplitTotals {
+    
+    LocalDate getDate();
+}
@@ -0,0 +1,11 @@
+package com.fairsplit.repository;
+
+import java.time.LocalDate;
+
+/**
+ * A participant's sum of cents over the expenses of one day, computed in the database.
+ */
+public interface DatedParticipantTotal extends ParticipantTotal {
+    
+    LocalDate getDate();
+}
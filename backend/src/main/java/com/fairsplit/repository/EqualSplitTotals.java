@@ -0,0 +1,12 @@
+package com.fairsplit.repository;
+
+/**
+ * A group's equal-split expenses summed in the database: their amounts, and the per-head
+ * shares each member owes for them.
+ */
+public interface EqualSplitTotals {
+    
+    Long getTotalCents();
+    
+    Long getShareCents();
+}
@@ -1,15 +1,114 @@
 package com.fairsplit.repository;
 
 import com.fairsplit.model.Expense;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, String> {
     
     List<Expense> findByGroupIdOrderByDateDesc(String groupId);
     
-    void deleteByGroupId(String groupId);
+    // Keyset pagination: (date, createdAt, expenseId) descending is a total order
+    @Query("select e from Expense e where e.groupId = :groupId " +
+            "order by e.date desc, e.createdAt desc, e.expenseId desc")
+    List<Expense> findFirstPage(@Param("groupId") String groupId, Pageable pageable);
+    
+    @Query("select e from Expense e where e.groupId = :groupId and (e.date < :date " +
+            "or (e.date = :date and (e.createdAt < :createdAt " +
+            "or (e.createdAt = :createdAt and e.expenseId < :expenseId)))) " +
+            "order by e.date desc, e.createdAt desc, e.expenseId desc")
+    List<Expense> findPageAfter(@Param("groupId") String groupId,
+                                @Param("date") LocalDate date,
+                                @Param("createdAt") LocalDateTime createdAt,
+                                @Param("expenseId") String expenseId,
+                                Pageable pageable);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    @Query("select e from Expense e where e.groupId = :groupId " +
+            "order by e.date desc, e.createdAt desc, e.expenseId desc")
+    Stream<Expense> streamByGroupId(@Param("groupId") String groupId);
+    
+    @Query("select e.groupId as groupId, sum(e.amountCents) as totalCents, " +
+            "count(e) as expenseCount, max(e.date) as lastExpenseDate " +
+            "from Expense e group by e.groupId")
+    List<GroupExpenseSummary> summarizeByGroup();
+    
+    @Query("select e.groupId as groupId, sum(e.amountCents) as totalCents, " +
+            "count(e) as expenseCount, max(e.date) as lastExpenseDate " +
+            "from Expense e where e.groupId = :groupId group by e.groupId")
+    Optional<GroupExpenseSummary> summarizeGroup(@Param("groupId") String groupId);
+    
+    // Ledger totals computed in the database, so reconciling a group hydrates no expenses
+    @Query("select e.payerId as participantId, sum(e.amountCents) as totalCents " +
+            "from Expense e where e.groupId = :groupId group by e.payerId")
+    List<ParticipantTotal> sumPaidByParticipant(@Param("groupId") String groupId);
+    
+    @Query("select key(c) as participantId, sum(c) as totalCents " +
+            "from Expense e join e.contributions c where e.groupId = :groupId group by key(c)")
+    List<ParticipantTotal> sumOwedByParticipant(@Param("groupId") String groupId);
+    
+    // Per-head share of each equal split rounded half-up in integers, exactly as Money.equalShare
+    // does for the positive amounts stored, summed
+    @Query("select coalesce(sum(e.amountCents), 0) as totalCents, " +
+            "coalesce(sum((2L * e.amountCents + :participants) / (2L * :participants)), 0) as shareCents " +
+            "from Expense e where e.groupId = :groupId and e.splitType = com.fairsplit.model.SplitType.EQUAL")
+    EqualSplitTotals sumEqualSplits(@Param("groupId") String groupId, @Param("participants") long participantCount);
+    
+    // The same totals per expense date, for rebuilding the daily balance index
+    @Query("select e.date as date, e.payerId as participantId, sum(e.amountCents) as totalCents " +
+            "from Expense e where e.groupId = :groupId group by e.date, e.payerId")
+    List<DatedParticipantTotal> sumPaidByParticipantAndDate(@Param("groupId") String groupId);
+    
+    @Query("select e.date as date, key(c) as participantId, sum(c) as totalCents " +
+            "from Expense e join e.contributions c where e.groupId = :groupId group by e.date, key(c)")
+    List<DatedParticipantTotal> sumOwedByParticipantAndDate(@Param("groupId") String groupId);
+    
+    @Query("select e.date as date, sum(e.amountCents) as totalCents, " +
+            "sum((2L * e.amountCents + :participants) / (2L * :participants)) as shareCents " +
+            "from Expense e where e.groupId = :groupId and e.splitType = com.fairsplit.model.SplitType.EQUAL " +
+            "group by e.date")
+    List<DatedEqualSplitTotals> sumEqualSplitsByDate(@Param("groupId") String groupId,
+                                                     @Param("participants") long participantCount);
+    
+    long countByGroupId(String groupId);
+    
+    @Query("select e.expenseId from Expense e where e.expenseId in :expenseIds")
+    List<String> findExistingIds(@Param("expenseIds") Collection<String> expenseIds);
+    
+    // Set-based deletes: contributions first, since they reference the expenses
+    @Modifying
+    @Query(value = "delete from expense_contributions where expense_id in " +
+            "(select expense_id from expenses where group_id = :groupId)", nativeQuery = true)
+    int deleteContributionsByGroupId(@Param("groupId") String groupId);
+    
+    @Modifying
+    @Query(value = "delete from expenses where group_id = :groupId", nativeQuery = true)
+    int deleteAllByGroupId(@Param("groupId") String groupId);
+    
+    // One chunk of a background purge, located through the group index
+    @Query("select e.expenseId from Expense e where e.groupId = :groupId")
+    List<String> findIdsByGroupId(@Param("groupId") String groupId, Pageable pageable);
+    
+    @Modifying
+    @Query(value = "delete from expense_contributions where expense_id in (:expenseIds)", nativeQuery = true)
+    int deleteContributionsByExpenseIds(@Param("expenseIds") Collection<String> expenseIds);
+    
+    @Modifying
+    @Query(value = "delete from expenses where expense_id in (:expenseIds)", nativeQuery = true)
+    int deleteAllByExpenseIds(@Param("expenseIds") Collection<String> expenseIds);
 }
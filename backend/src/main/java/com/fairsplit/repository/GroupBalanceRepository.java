@@ -0,0 +1,50 @@
+package com.fairsplit.repository;
+
+import com.fairsplit.model.GroupBalance;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface GroupBalanceRepository extends JpaRepository<GroupBalance, String> {
+    
+    List<GroupBalance> findByGroupId(String groupId);
+    
+    // Rows with the group's equal-split share folded into owed and net. One statement, so the
+    // rows and the share always come from the same committed state.
+    @Query("select new com.fairsplit.model.GroupBalance(b.balanceId, b.groupId, b.participantId, " +
+            "b.totalPaidCents, b.totalOwedCents + g.equalShareCents, b.netBalanceCents - g.equalShareCents) " +
+            "from GroupBalance b join Group g on g.groupId = b.groupId where b.groupId = :groupId")
+    List<GroupBalance> findEffectiveByGroupId(@Param("groupId") String groupId);
+    
+    // Several groups' effective rows in one statement, grouped by group, with the names they settle under
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.fairsplit.repository.ParticipantBalance(b.groupId, b.participantId, p, " +
+            "b.totalPaidCents, b.totalOwedCents + g.equalShareCents) " +
+            "from GroupBalance b join Group g on g.groupId = b.groupId join g.participants p " +
+            "where b.groupId in :groupIds and index(p) = b.participantId order by b.groupId, b.participantId")
+    List<ParticipantBalance> findEffectiveByGroupIds(@Param("groupIds") Collection<String> groupIds);
+    
+    // Increment in SQL so concurrent writers never overwrite each other's totals
+    @Modifying
+    @Query("update GroupBalance b set b.totalPaidCents = b.totalPaidCents + :paid, " +
+            "b.totalOwedCents = b.totalOwedCents + :owed, " +
+            "b.netBalanceCents = b.netBalanceCents + :paid - :owed " +
+            "where b.groupId = :groupId and b.participantId = :participantId")
+    int applyDelta(@Param("groupId") String groupId,
+                   @Param("participantId") int participantId,
+                   @Param("paid") long paidCents,
+                   @Param("owed") long owedCents);
+    
+    @Modifying
+    @Query("delete from GroupBalance b where b.groupId = :groupId")
+    int deleteAllByGroupId(@Param("groupId") String groupId);
+}
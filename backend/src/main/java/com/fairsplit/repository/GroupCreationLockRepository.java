@@ -0,0 +1,26 @@
+package com.fairsplit.repository;
+
+import com.fairsplit.model.GroupCreationLock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GroupCreationLockRepository extends JpaRepository<GroupCreationLock, Integer> {
+    
+    // Held until commit; creations queue here, in the database rather than in one JVM
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from GroupCreationLock l where l.id = " + GroupCreationLock.ID)
+    Optional<GroupCreationLock> lock();
+    
+    // Idempotent, so instances starting at the same time can all run it
+    @Modifying
+    @Query(value = "merge into group_creation_lock (id) key (id) values (" + GroupCreationLock.ID + ")",
+            nativeQuery = true)
+    void ensureExists();
+}
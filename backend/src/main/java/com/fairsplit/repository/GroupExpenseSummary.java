@@ -0,0 +1,17 @@
+package com.fairsplit.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Per-group expense aggregates, computed in the database.
+ */
+public interface GroupExpenseSummary {
+    
+    String getGroupId();
+    
+    Long getTotalCents();
+    
+    Long getExpenseCount();
+    
+    LocalDate getLastExpenseDate();
+}
@@ -0,0 +1,11 @@
+package com.fairsplit.repository;
+
+/**
+ * A group's id and name, without its participants.
+ */
+public interface GroupName {
+    
+    String getGroupId();
+    
+    String getGroupName();
+}
@@ -1,13 +1,48 @@
 package com.fairsplit.repository;
 
 import com.fairsplit.model.Group;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface GroupRepository extends JpaRepository<Group, String> {
     
-    Optional<Group> findByGroupNameIgnoreCase(String groupName);
+    // Served by the index on the generated upper-case name column
+    @Query("select g from Group g where g.groupNameKey = upper(:groupName)")
+    Optional<Group> findByGroupNameIgnoreCase(@Param("groupName") String groupName);
+    
+    // Fetch participants in the same query instead of one select per group
+    @EntityGraph(attributePaths = "participants")
+    @Query("select g from Group g")
+    List<Group> findAllWithParticipants();
+    
+    // One page of groups in id order, after the last id of the previous page
+    @Query("select g.groupId as groupId, g.groupName as groupName from Group g " +
+            "where g.groupId > :afterId order by g.groupId")
+    List<GroupName> findNamesAfter(@Param("afterId") String afterId, Pageable page);
+    
+    // The group's write lock, held until commit; empty when the group does not exist (any more)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select g from Group g where g.groupId = :groupId")
+    Optional<Group> lockById(@Param("groupId") String groupId);
+    
+    // Increment in SQL so concurrent writers never overwrite each other's totals. Also takes the
+    // group's write lock, and updates nothing once the group is deleted.
+    @Modifying
+    @Query("update Group g set g.equalShareCents = g.equalShareCents + :shareCents where g.groupId = :groupId")
+    int addEqualShare(@Param("groupId") String groupId, @Param("shareCents") long shareCents);
+    
+    @Modifying
+    @Query("update Group g set g.equalShareCents = :shareCents where g.groupId = :groupId")
+    int setEqualShare(@Param("groupId") String groupId, @Param("shareCents") long shareCents);
 }
@@ -0,0 +1,9 @@
+package com.fairsplit.repository;
+
+import com.fairsplit.model.GroupTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GroupTombstoneRepository extends JpaRepository<GroupTombstone, String> {
+}
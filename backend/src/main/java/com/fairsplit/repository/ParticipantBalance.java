@@ -0,0 +1,9 @@
+package com.fairsplit.repository;
+
+/**
+ * One member's effective ledger totals joined with their name. A record rather than an
+ * interface projection, so streaming every group's rows creates no proxies.
+ */
+public record ParticipantBalance(String groupId, int participantId, String participant,
+                                 long totalPaidCents, long totalOwedCents) {
+}
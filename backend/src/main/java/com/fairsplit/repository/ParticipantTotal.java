@@ -0,0 +1,11 @@
+package com.fairsplit.repository;
+
+/**
+ * A sum of cents for one participant id of a group, computed in the database.
+ */
+public interface ParticipantTotal {
+    
+    Integer getParticipantId();
+    
+    Long getTotalCents();
+}
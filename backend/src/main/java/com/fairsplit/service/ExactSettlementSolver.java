@@ -0,0 +1,153 @@
+package com.fairsplit.service;
+
+import com.fairsplit.dto.SettlementResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Finds the fewest transfers that settle a group.
+ * <p>
+ * A group of n non-zero balances that splits into k zero-sum subgroups can be settled with
+ * n - k transfers, so the solver looks for the partition with the most zero-sum subgroups
+ * using a DP over subsets. That is exponential in the member count, in memory as well as time,
+ * so it only runs for small groups, a few at a time, and gives up as soon as the configured
+ * time budget is spent; callers then fall back to the greedy matcher.
+ */
+@Component
+@Slf4j
+public class ExactSettlementSolver {
+    
+    // Check the clock every this many subsets; keeps System.nanoTime off the inner loop
+    private static final int DEADLINE_CHECK_INTERVAL = 1 << 12;
+    
+    // The DP tables take 10 bytes per subset: about 2.6 MB per solve at 18 members
+    private static final int MAX_MEMBERS_LIMIT = 18;
+    
+    private final long timeBudgetNanos;
+    private final int maxMembers;
+    // Bounds the memory held by solves in flight; a solve that finds none free falls back
+    private final Semaphore solves;
+    
+    public ExactSettlementSolver(
+            @Value("${fairsplit.settlement.exact.time-budget-ms:50}") long timeBudgetMillis,
+            @Value("${fairsplit.settlement.exact.max-members:16}") int maxMembers,
+            @Value("${fairsplit.settlement.exact.max-concurrent:4}") int maxConcurrent) {
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000;
+        this.maxMembers = Math.min(maxMembers, MAX_MEMBERS_LIMIT);
+        this.solves = new Semaphore(maxConcurrent);
+    }
+    
+    /**
+     * Returns the optimal settlements, or empty when the group is too large, does not
+     * balance to zero, too many solves are running, or the time budget runs out.
+     */
+    public Optional<List<SettlementResponse.Settlement>> solve(String[] participants, long[] balanceCents) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        
+        // Members with nothing to settle never take part in a transfer
+        int n = 0;
+        String[] names = new String[participants.length];
+        long[] balances = new long[participants.length];
+        long total = 0;
+        for (int i = 0; i < participants.length; i++) {
+            if (balanceCents[i] != 0) {
+                names[n] = participants[i];
+                balances[n] = balanceCents[i];
+                total += balanceCents[i];
+                n++;
+            }
+        }
+        
+        if (n > maxMembers) {
+            log.debug("Exact settlement skipped: {} members exceeds limit of {}", n, maxMembers);
+            return Optional.empty();
+        }
+        if (total != 0) {
+            log.debug("Exact settlement skipped: balances sum to {} cents, not zero", total);
+            return Optional.empty();
+        }
+        if (n == 0) {
+            return Optional.of(new ArrayList<>());
+        }
+        if (!solves.tryAcquire()) {
+            log.debug("Exact settlement skipped: too many solves running");
+            return Optional.empty();
+        }
+        try {
+            return solve(names, balances, n, deadline);
+        } finally {
+            solves.release();
+        }
+    }
+    
+    private Optional<List<SettlementResponse.Settlement>> solve(String[] names, long[] balances, int n, long deadline) {
+        if (System.nanoTime() > deadline) {
+            log.debug("Exact settlement for {} members ran out of time budget", n);
+            return Optional.empty();
+        }
+        
+        // best[mask] = most zero-sum blocks in some ordering of mask's members,
+        // last[mask] = the member placed last in that ordering
+        int full = (1 << n) - 1;
+        long[] sums = new long[full + 1];
+        byte[] best = new byte[full + 1];
+        byte[] last = new byte[full + 1];
+        
+        for (int mask = 1; mask <= full; mask++) {
+            if ((mask & (DEADLINE_CHECK_INTERVAL - 1)) == 0 && System.nanoTime() > deadline) {
+                log.debug("Exact settlement for {} members ran out of time budget", n);
+                return Optional.empty();
+            }
+            
+            int lowest = Integer.numberOfTrailingZeros(mask);
+            sums[mask] = sums[mask & (mask - 1)] + balances[lowest];
+            
+            int bestCount = -1;
+            int bestMember = lowest;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                int member = Integer.numberOfTrailingZeros(rest);
+                int count = best[mask ^ (1 << member)];
+                if (count > bestCount) {
+                    bestCount = count;
+                    bestMember = member;
+                }
+            }
+            best[mask] = (byte) (bestCount + (sums[mask] == 0 ? 1 : 0));
+            last[mask] = (byte) bestMember;
+        }
+        
+        // Walk the ordering back from the full set; every zero prefix sum closes a subgroup
+        int[] order = new int[n];
+        int mask = full;
+        for (int pos = n - 1; pos >= 0; pos--) {
+            order[pos] = last[mask];
+            mask ^= 1 << last[mask];
+        }
+        
+        List<SettlementResponse.Settlement> settlements = new ArrayList<>(n - best[full]);
+        int start = 0;
+        long prefix = 0;
+        for (int pos = 0; pos < n; pos++) {
+            prefix += balances[order[pos]];
+            if (prefix == 0) {
+                String[] groupNames = new String[pos - start + 1];
+                long[] groupBalances = new long[pos - start + 1];
+                for (int j = start; j <= pos; j++) {
+                    groupNames[j - start] = names[order[j]];
+                    groupBalances[j - start] = balances[order[j]];
+                }
+                // Greedy inside a zero-sum subgroup of size k needs at most k - 1 transfers
+                settlements.addAll(GreedySettlementOptimizer.optimize(groupNames, groupBalances));
+                start = pos + 1;
+            }
+        }
+        
+        return Optional.of(settlements);
+    }
+}
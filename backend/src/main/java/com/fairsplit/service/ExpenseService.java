@@ -1,37 +1,240 @@
 package com.fairsplit.service;
 
+import com.fairsplit.dto.BatchExpenseResponse;
+import com.fairsplit.dto.ExpensePageResponse;
 import com.fairsplit.dto.ExpenseRequest;
 import com.fairsplit.dto.ExpenseResponse;
+import com.fairsplit.event.GroupChangedEvent;
 import com.fairsplit.model.Expense;
 import com.fairsplit.model.Group;
+import com.fairsplit.model.Money;
 import com.fairsplit.model.SplitType;
 import com.fairsplit.repository.ExpenseRepository;
-import com.fairsplit.repository.GroupRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ExpenseService {
     
     private final ExpenseRepository expenseRepository;
-    private final GroupRepository groupRepository;
+    private final GroupCache groupCache;
+    private final BalanceLedgerService balanceLedgerService;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WriteTransactions writeTransactions;
+    
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_BATCH_SIZE = 10_000;
+    // Matches hibernate.jdbc.batch_size so each flush sends full JDBC batches
+    private static final int FLUSH_INTERVAL = 500;
     
     public ExpenseResponse addExpense(String groupId, ExpenseRequest request) {
+        return writeTransactions.execute(() -> insertExpense(groupId, request));
+    }
+    
+    private ExpenseResponse insertExpense(String groupId, ExpenseRequest request) {
+        // Validate group exists
+        Group group = groupCache.get(groupId);
+        
+        Expense expense = buildExpense(group, request);
+        
+        Expense savedExpense = expenseRepository.save(expense);
+        
+        // Keep the balance ledger in step within the same transaction; this takes the group's
+        // write lock and fails if the group was deleted since it was read
+        balanceLedgerService.applyExpense(group, savedExpense);
+        eventPublisher.publishEvent(GroupChangedEvent.expensesAdded(groupId, List.of(savedExpense)));
+        
+        return mapToResponse(savedExpense, group.getParticipants());
+    }
+    
+    /**
+     * Imports many expenses into one group in a single transaction. Each item is validated
+     * on its own and reported back by index; invalid items are skipped, not fatal.
+     */
+    public BatchExpenseResponse addExpenses(String groupId, List<ExpenseRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one expense is required");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Maximum " + MAX_BATCH_SIZE + " expenses allowed per batch");
+        }
+        
+        return writeTransactions.execute(() -> insertExpenses(groupId, requests));
+    }
+    
+    private BatchExpenseResponse insertExpenses(String groupId, List<ExpenseRequest> requests) {
+        // Validate group exists, once for the whole batch
+        Group group = groupCache.get(groupId);
+        
+        List<BatchExpenseResponse.ItemResult> results = new ArrayList<>(requests.size());
+        List<Expense> created = new ArrayList<>(requests.size());
+        
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                Expense expense = buildExpense(group, validateConstraints(requests.get(i)));
+                
+                // Ids are assigned up front, so persist (not merge) and let JDBC batch the inserts
+                entityManager.persist(expense);
+                created.add(expense);
+                results.add(BatchExpenseResponse.ItemResult.builder()
+                        .index(i)
+                        .status("CREATED")
+                        .expenseId(expense.getExpenseId())
+                        .build());
+                
+                if (created.size() % FLUSH_INTERVAL == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            } catch (IllegalArgumentException e) {
+                results.add(BatchExpenseResponse.ItemResult.builder()
+                        .index(i)
+                        .status("REJECTED")
+                        .error(e.getMessage())
+                        .build());
+            }
+        }
+        
+        // One ledger update per participant for the whole batch
+        balanceLedgerService.applyExpenses(group, created);
+        if (!created.isEmpty()) {
+            eventPublisher.publishEvent(GroupChangedEvent.expensesAdded(groupId, created));
+        }
+        
+        return BatchExpenseResponse.builder()
+                .received(requests.size())
+                .created(created.size())
+                .rejected(requests.size() - created.size())
+                .results(results)
+                .build();
+    }
+    
+    public List<ExpenseResponse> getExpensesByGroup(String groupId) {
         // Validate group exists
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new IllegalArgumentException("Group not found: " + groupId));
+        List<String> participants = getParticipants(groupId);
+        
+        List<Expense> expenses = expenseRepository.findByGroupIdOrderByDateDesc(groupId);
+        
+        return expenses.stream()
+                .map(expense -> mapToResponse(expense, participants))
+                .collect(Collectors.toList());
+    }
+    
+    public ExpensePageResponse getExpensePage(String groupId, int limit, String cursor) {
+        // Validate group exists
+        List<String> participants = getParticipants(groupId);
+        
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        
+        // Fetch one extra row to learn whether another page follows
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<Expense> expenses;
+        if (cursor == null || cursor.isBlank()) {
+            expenses = expenseRepository.findFirstPage(groupId, pageable);
+        } else {
+            String[] position = decodeCursor(cursor);
+            expenses = expenseRepository.findPageAfter(groupId,
+                    LocalDate.parse(position[0]), LocalDateTime.parse(position[1]), position[2], pageable);
+        }
+        
+        boolean hasMore = expenses.size() > limit;
+        List<Expense> page = hasMore ? expenses.subList(0, limit) : expenses;
+        
+        return ExpensePageResponse.builder()
+                .expenses(page.stream().map(expense -> mapToResponse(expense, participants)).collect(Collectors.toList()))
+                .nextCursor(hasMore ? encodeCursor(page.get(page.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+    
+    public void checkGroupExists(String groupId) {
+        groupCache.get(groupId);
+    }
+    
+    private List<String> getParticipants(String groupId) {
+        return groupCache.get(groupId).getParticipants();
+    }
+    
+    @Transactional
+    public void streamExpenses(String groupId, Consumer<ExpenseResponse> sink) {
+        List<String> participants = getParticipants(groupId);
         
-        // Validate amount is positive
-        if (request.getAmount() <= 0) {
+        // Detach each row once written so the persistence context never grows
+        try (Stream<Expense> expenses = expenseRepository.streamByGroupId(groupId)) {
+            expenses.forEach(expense -> {
+                sink.accept(mapToResponse(expense, participants));
+                entityManager.detach(expense);
+            });
+        }
+    }
+    
+    private String encodeCursor(Expense expense) {
+        String position = expense.getDate() + "|" + expense.getCreatedAt() + "|" + expense.getExpenseId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            // Fail fast on malformed timestamps rather than inside the query
+            LocalDate.parse(parts[0]);
+            LocalDateTime.parse(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+    
+    private ExpenseRequest validateConstraints(ExpenseRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Expense is required");
+        }
+        
+        Set<ConstraintViolation<ExpenseRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return request;
+    }
+    
+    private Expense buildExpense(Group group, ExpenseRequest request) {
+        // Validate amount is positive once rounded to cents
+        long amountCents = Money.toCents(request.getAmount());
+        if (amountCents <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
         
@@ -42,96 +245,81 @@ public class ExpenseService {
         }
         
         // Validate payer is a participant
-        if (!group.getParticipants().contains(request.getPaidBy())) {
+        int payerId = group.participantId(request.getPaidBy());
+        if (payerId < 0) {
             throw new IllegalArgumentException("Payer must be a participant in the group");
         }
         
         // Create expense
         Expense expense = new Expense();
-        expense.setGroupId(groupId);
+        expense.setGroupId(group.getGroupId());
         expense.setDescription(request.getDescription());
-        expense.setAmount(roundToTwoDecimals(request.getAmount()));
-        expense.setPaidBy(request.getPaidBy());
+        expense.setAmountCents(amountCents);
+        expense.setPayerId(payerId);
         expense.setDate(expenseDate);
         
         // Calculate splits
-        Map<String, Double> splitDetails;
         if (request.getContributions() != null && !request.getContributions().isEmpty()) {
             // Custom split
             expense.setSplitType(SplitType.CUSTOM);
-            expense.setContributions(request.getContributions());
-            splitDetails = request.getContributions();
+            expense.setContributions(toParticipantIds(group, Money.toCents(request.getContributions())));
         } else {
-            // Equal split
+            // Equal split, derived from the participant list whenever it is needed
             expense.setSplitType(SplitType.EQUAL);
-            splitDetails = calculateEqualSplit(request.getAmount(), group.getParticipants());
-            expense.setContributions(splitDetails);
         }
         
         expense.prePersist();
-        
-        Expense savedExpense = expenseRepository.save(expense);
-        
-        return mapToResponse(savedExpense, splitDetails);
+        return expense;
     }
     
-    public List<ExpenseResponse> getExpensesByGroup(String groupId) {
-        // Validate group exists
-        if (!groupRepository.existsById(groupId)) {
-            throw new IllegalArgumentException("Group not found: " + groupId);
+    private Map<Integer, Long> toParticipantIds(Group group, Map<String, Long> contributions) {
+        Map<Integer, Long> byId = new HashMap<>(contributions.size() * 2);
+        for (Map.Entry<String, Long> contribution : contributions.entrySet()) {
+            int participantId = group.participantId(contribution.getKey());
+            if (participantId < 0) {
+                throw new IllegalArgumentException("Contributor must be a participant in the group: " + contribution.getKey());
+            }
+            byId.put(participantId, contribution.getValue());
         }
-        
-        List<Expense> expenses = expenseRepository.findByGroupIdOrderByDateDesc(groupId);
-        
-        return expenses.stream()
-                .map(expense -> mapToResponse(expense, expense.getContributions()))
-                .collect(Collectors.toList());
+        return byId;
     }
     
-    private Map<String, Double> calculateEqualSplit(Double amount, List<String> participants) {
-        BigDecimal totalAmount = BigDecimal.valueOf(amount);
-        int participantCount = participants.size();
-        
-        BigDecimal sharePerPerson = totalAmount.divide(
-                BigDecimal.valueOf(participantCount), 
-                2, 
-                RoundingMode.HALF_UP
-        );
-        
-        Map<String, Double> splits = new HashMap<>();
-        BigDecimal totalAllocated = BigDecimal.ZERO;
-        
-        // Allocate equal shares to all but last participant
-        for (int i = 0; i < participantCount - 1; i++) {
-            double share = sharePerPerson.doubleValue();
-            splits.put(participants.get(i), share);
-            totalAllocated = totalAllocated.add(BigDecimal.valueOf(share));
-        }
-        
+    Map<String, Long> calculateEqualSplit(long amountCents, List<String> participants) {
         // Last participant gets the remainder to handle rounding
-        String lastParticipant = participants.get(participantCount - 1);
-        BigDecimal lastShare = totalAmount.subtract(totalAllocated);
-        splits.put(lastParticipant, roundToTwoDecimals(lastShare.doubleValue()));
-        
-        return splits;
+        return Money.splitEqually(amountCents, participants);
+    }
+    
+    Map<String, Long> contributionsOf(Expense expense, List<String> participants) {
+        // Equal splits store no rows; groups never change members, so the split is stable
+        if (expense.getContributions().isEmpty()) {
+            return calculateEqualSplit(expense.getAmountCents(), participants);
+        }
+        // Names only appear at the response boundary
+        Map<String, Long> contributions = new LinkedHashMap<>(expense.getContributions().size() * 2);
+        for (Map.Entry<Integer, Long> contribution : expense.getContributions().entrySet()) {
+            contributions.put(participants.get(contribution.getKey()), contribution.getValue());
+        }
+        return contributions;
     }
     
-    private double roundToTwoDecimals(double value) {
-        return BigDecimal.valueOf(value)
-                .setScale(2, RoundingMode.HALF_UP)
-                .doubleValue();
+    List<ExpenseResponse> mapToResponses(List<String> participants, List<Expense> expenses) {
+        return expenses.stream()
+                .map(expense -> mapToResponse(expense, participants))
+                .collect(Collectors.toList());
     }
     
-    private ExpenseResponse mapToResponse(Expense expense, Map<String, Double> splitDetails) {
+    ExpenseResponse mapToResponse(Expense expense, List<String> participants) {
+        Map<String, Double> contributions = Money.toAmounts(contributionsOf(expense, participants));
+        
         return ExpenseResponse.builder()
                 .expenseId(expense.getExpenseId())
                 .groupId(expense.getGroupId())
                 .description(expense.getDescription())
-                .amount(expense.getAmount())
-                .paidBy(expense.getPaidBy())
+                .amount(Money.toAmount(expense.getAmountCents()))
+                .paidBy(participants.get(expense.getPayerId()))
                 .date(expense.getDate())
-                .contributions(expense.getContributions())
-                .splitDetails(splitDetails)
+                .contributions(contributions)
+                .splitDetails(contributions)
                 .splitType(expense.getSplitType())
                 .createdAt(expense.getCreatedAt())
                 .build();
@@ -0,0 +1,149 @@
+package com.fairsplit.service;
+
+import com.fairsplit.dto.SettlementResponse;
+import com.fairsplit.model.Money;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Greedy "largest creditor pays off largest debtor" matcher over balances in cents.
+ * <p>
+ * Creditors and debtors live in two binary heaps of participant indices, so each transfer
+ * costs O(log n) instead of a full scan of the remaining balances. Ties on amount are broken
+ * by participant name, which makes the output deterministic.
+ */
+public final class GreedySettlementOptimizer {
+    
+    private GreedySettlementOptimizer() {
+    }
+    
+    public static List<SettlementResponse.Settlement> optimize(String[] participants, long[] balanceCents) {
+        int n = participants.length;
+        
+        // Rank participants by name once so heap comparisons stay on primitives
+        Integer[] byName = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byName[i] = i;
+        }
+        Arrays.sort(byName, (a, b) -> participants[a].compareTo(participants[b]));
+        int[] nameRank = new int[n];
+        for (int i = 0; i < n; i++) {
+            nameRank[byName[i]] = i;
+        }
+        
+        // Remaining absolute amount owed to (creditors) or by (debtors) each participant
+        long[] remaining = new long[n];
+        IndexHeap creditors = new IndexHeap(n, remaining, nameRank);
+        IndexHeap debtors = new IndexHeap(n, remaining, nameRank);
+        for (int i = 0; i < n; i++) {
+            if (balanceCents[i] > 0) {
+                remaining[i] = balanceCents[i];
+                creditors.push(i);
+            } else if (balanceCents[i] < 0) {
+                remaining[i] = -balanceCents[i];
+                debtors.push(i);
+            }
+        }
+        
+        List<SettlementResponse.Settlement> settlements = new ArrayList<>(Math.max(creditors.size(), debtors.size()));
+        
+        while (!creditors.isEmpty() && !debtors.isEmpty()) {
+            int creditor = creditors.pop();
+            int debtor = debtors.pop();
+            
+            // Transfer minimum of the two amounts
+            long transfer = Math.min(remaining[creditor], remaining[debtor]);
+            
+            settlements.add(SettlementResponse.Settlement.builder()
+                    .from(participants[debtor])
+                    .to(participants[creditor])
+                    .amount(Money.toAmount(transfer))
+                    .build());
+            
+            remaining[creditor] -= transfer;
+            remaining[debtor] -= transfer;
+            
+            // Anyone with a cent or more left goes back into play
+            if (remaining[creditor] > 0) {
+                creditors.push(creditor);
+            }
+            if (remaining[debtor] > 0) {
+                debtors.push(debtor);
+            }
+        }
+        
+        return settlements;
+    }
+    
+    /**
+     * Max-heap of participant indices ordered by remaining amount, then by name.
+     */
+    private static final class IndexHeap {
+        
+        private final int[] heap;
+        private final long[] amounts;
+        private final int[] nameRank;
+        private int size;
+        
+        IndexHeap(int capacity, long[] amounts, int[] nameRank) {
+            this.heap = new int[capacity];
+            this.amounts = amounts;
+            this.nameRank = nameRank;
+        }
+        
+        boolean isEmpty() {
+            return size == 0;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        void push(int index) {
+            int pos = size++;
+            heap[pos] = index;
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (!before(heap[pos], heap[parent])) {
+                    break;
+                }
+                swap(pos, parent);
+                pos = parent;
+            }
+        }
+        
+        int pop() {
+            int top = heap[0];
+            heap[0] = heap[--size];
+            int pos = 0;
+            while (true) {
+                int left = 2 * pos + 1;
+                if (left >= size) {
+                    break;
+                }
+                int child = left + 1 < size && before(heap[left + 1], heap[left]) ? left + 1 : left;
+                if (!before(heap[child], heap[pos])) {
+                    break;
+                }
+                swap(pos, child);
+                pos = child;
+            }
+            return top;
+        }
+        
+        private boolean before(int a, int b) {
+            if (amounts[a] != amounts[b]) {
+                return amounts[a] > amounts[b];
+            }
+            return nameRank[a] < nameRank[b];
+        }
+        
+        private void swap(int i, int j) {
+            int tmp = heap[i];
+            heap[i] = heap[j];
+            heap[j] = tmp;
+        }
+    }
+}
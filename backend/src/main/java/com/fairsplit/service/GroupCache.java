@@ -0,0 +1,77 @@
+package com.fairsplit.service;
+
+import com.fairsplit.dto.CacheStatsResponse;
+import com.fairsplit.event.GroupChangedEvent;
+import com.fairsplit.model.Group;
+import com.fairsplit.repository.GroupRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through cache of groups with their participants, so validating a payer or naming
+ * ledger rows needs no SQL once a group has been read.
+ * <p>
+ * Groups never change after creation apart from their equal-split share, which is only ever
+ * read from the database. The one change that matters is deletion: entries are dropped inside
+ * the deleting transaction and again after it commits, in case a concurrent read put the
+ * group back in between. Cached groups are shared between threads and must not be modified.
+ */
+@Component
+public class GroupCache {
+
+    private final GroupRepository groupRepository;
+    private final Cache<String, Group> cache;
+
+    public GroupCache(
+            GroupRepository groupRepository,
+            @Value("${fairsplit.groups.cache.max-size:10000}") long maxSize,
+            @Value("${fairsplit.groups.cache.ttl:30m}") Duration ttl) {
+        this.groupRepository = groupRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The group, loaded on first use; unknown ids are looked up every time, never cached.
+     */
+    public Optional<Group> find(String groupId) {
+        return Optional.ofNullable(cache.get(groupId, id -> groupRepository.findById(id).orElse(null)));
+    }
+
+    public Group get(String groupId) {
+        return find(groupId).orElseThrow(() -> new IllegalArgumentException("Group not found: " + groupId));
+    }
+
+    public void invalidate(String groupId) {
+        cache.invalidate(groupId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroupChanged(GroupChangedEvent event) {
+        if (event.getChangeType() == GroupChangedEvent.ChangeType.GROUP_DELETED) {
+            cache.invalidate(event.getGroupId());
+        }
+    }
+
+    public CacheStatsResponse getStats() {
+        CacheStats stats = cache.stats();
+        return CacheStatsResponse.builder()
+                .name("groups")
+                .size(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.fairsplit.service;
+
+import com.fairsplit.event.GroupChangedEvent;
+import com.fairsplit.model.GroupTombstone;
+import com.fairsplit.repository.DailyBalanceRepository;
+import com.fairsplit.repository.ExpenseRepository;
+import com.fairsplit.repository.GroupTombstoneRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Removes the expenses and daily balance index of deleted groups with set-based statements.
+ * <p>
+ * Up to {@code inline-limit} expenses are deleted in the deleting transaction. A larger group
+ * is tombstoned instead and its expenses, then its daily index rows, are purged after the
+ * commit, one short transaction per {@code chunk-size} rows, so the delete request does bounded
+ * work and holds no long locks. Tombstones left by a shutdown are resumed at the next start.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GroupPurgeService {
+
+    private final ExpenseRepository expenseRepository;
+    private final DailyBalanceRepository dailyBalanceRepository;
+    private final GroupTombstoneRepository groupTombstoneRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${fairsplit.groups.purge.inline-limit:1000}")
+    private int inlineLimit;
+
+    @Value("${fairsplit.groups.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    // One purge at a time keeps the background load on the database predictable
+    private ExecutorService purger;
+
+    @PostConstruct
+    void start() {
+        purger = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "group-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        // An interrupted purge stops between chunks; its tombstone remains for the next start
+        purger.shutdownNow();
+    }
+
+    /**
+     * Deletes a group's expenses and daily index in the caller's transaction, or tombstones the
+     * group when it has more than {@code inline-limit} expenses.
+     */
+    @Transactional
+    public void deleteHistory(String groupId) {
+        // Bounded probe rather than a count, which would scan every expense of a large group
+        List<String> probe = expenseRepository.findIdsByGroupId(groupId, PageRequest.of(0, inlineLimit + 1));
+        if (probe.size() <= inlineLimit) {
+            expenseRepository.deleteContributionsByGroupId(groupId);
+            expenseRepository.deleteAllByGroupId(groupId);
+            // Rows only exist for days with expenses, so these are bounded by the limit too
+            dailyBalanceRepository.deleteAllByGroupId(groupId);
+        } else {
+            groupTombstoneRepository.save(new GroupTombstone(groupId, LocalDateTime.now()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroupChanged(GroupChangedEvent event) {
+        if (event.getChangeType() == GroupChangedEvent.ChangeType.GROUP_DELETED) {
+            purger.execute(() -> purge(event.getGroupId()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePurges() {
+        for (GroupTombstone tombstone : groupTombstoneRepository.findAll()) {
+            log.info("Resuming purge of group {}, deleted at {}", tombstone.getGroupId(), tombstone.getDeletedAt());
+            purger.execute(() -> purge(tombstone.getGroupId()));
+        }
+    }
+
+    private void purge(String groupId) {
+        try {
+            if (!groupTombstoneRepository.existsById(groupId)) {
+                return;
+            }
+            long start = System.nanoTime();
+            long purged = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                Integer deleted = transactionTemplate.execute(status -> purgeChunk(groupId));
+                if (deleted == null || deleted == 0) {
+                    log.info("Purged {} expense and daily index rows of deleted group {} in {} ms", purged, groupId,
+                            (System.nanoTime() - start) / 1_000_000);
+                    return;
+                }
+                purged += deleted;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Purge of group {} stopped, to be resumed at the next start: {}", groupId, e.getMessage());
+        }
+    }
+
+    private int purgeChunk(String groupId) {
+        List<String> expenseIds = expenseRepository.findIdsByGroupId(groupId, PageRequest.of(0, chunkSize));
+        if (!expenseIds.isEmpty()) {
+            expenseRepository.deleteContributionsByExpenseIds(expenseIds);
+            return expenseRepository.deleteAllByExpenseIds(expenseIds);
+        }
+        List<String> balanceIds = dailyBalanceRepository.findIdsByGroupId(groupId, PageRequest.of(0, chunkSize));
+        if (!balanceIds.isEmpty()) {
+            return dailyBalanceRepository.deleteAllByBalanceIds(balanceIds);
+        }
+        groupTombstoneRepository.deleteById(groupId);
+        return 0;
+    }
+}
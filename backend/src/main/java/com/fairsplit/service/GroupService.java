@@ -2,17 +2,25 @@ package com.fairsplit.service;
 
 import com.fairsplit.dto.GroupRequest;
 import com.fairsplit.dto.GroupResponse;
-import com.fairsplit.model.Expense;
+import com.fairsplit.event.GroupChangedEvent;
 import com.fairsplit.model.Group;
+import com.fairsplit.model.Money;
 import com.fairsplit.repository.ExpenseRepository;
+import com.fairsplit.repository.GroupCreationLockRepository;
+import com.fairsplit.repository.GroupExpenseSummary;
 import com.fairsplit.repository.GroupRepository;
-import jakarta.transaction.Transactional;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,17 +28,58 @@ import java.util.stream.Collectors;
 public class GroupService {
     
     private final GroupRepository groupRepository;
+    private final GroupCache groupCache;
     private final ExpenseRepository expenseRepository;
+    private final BalanceLedgerService balanceLedgerService;
+    private final GroupPurgeService groupPurgeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WriteTransactions writeTransactions;
+    private final GroupCreationLockRepository groupCreationLockRepository;
     
-    private static final int MAX_GROUPS = 10;
-    private static final int MAX_PARTICIPANTS = 10;
+    @Value("${fairsplit.groups.max-groups:10}")
+    private int maxGroups;
+    
+    @Value("${fairsplit.groups.max-participants:10}")
+    private int maxParticipants;
+    
+    @PostConstruct
+    void ensureCreationLock() {
+        // Migrated databases have the row already; schemas generated at startup do not
+        writeTransactions.executeWithoutResult(groupCreationLockRepository::ensureExists);
+    }
     
-    @Transactional
     public GroupResponse createGroup(GroupRequest request) {
+        // Validate participants before taking the lock
+        if (request.getParticipants().size() > maxParticipants) {
+            throw new IllegalArgumentException("Maximum " + maxParticipants + " participants allowed per group");
+        }
+        
+        // Validate participant uniqueness (case-sensitive)
+        Set<String> uniqueParticipants = new HashSet<>(request.getParticipants());
+        if (uniqueParticipants.size() != request.getParticipants().size()) {
+            throw new IllegalArgumentException("Duplicate participant names are not allowed");
+        }
+        
+        try {
+            return writeTransactions.execute(() -> insertGroup(request));
+        } catch (DataIntegrityViolationException e) {
+            // A group created outside this service took the name: the unique name key caught it
+            if (groupRepository.findByGroupNameIgnoreCase(request.getGroupName()).isPresent()) {
+                throw new IllegalArgumentException("Group name already exists: " + request.getGroupName());
+            }
+            throw e;
+        }
+    }
+    
+    private GroupResponse insertGroup(GroupRequest request) {
+        // Creations queue on the lock row until the previous one commits, so the count is exact
+        groupCreationLockRepository.lock()
+                .orElseThrow(() -> new IllegalStateException("Group creation lock row is missing"));
+        
         // Validate group limit
         long groupCount = groupRepository.count();
-        if (groupCount >= MAX_GROUPS) {
-            throw new IllegalStateException("Maximum group limit of " + MAX_GROUPS + " reached");
+        if (groupCount >= maxGroups) {
+            throw new IllegalStateException("Maximum group limit of " + maxGroups + " reached");
         }
         
         // Validate group name uniqueness (case-insensitive)
@@ -38,17 +87,6 @@ public class GroupService {
             throw new IllegalArgumentException("Group name already exists: " + request.getGroupName());
         }
         
-        // Validate participant count
-        if (request.getParticipants().size() > MAX_PARTICIPANTS) {
-            throw new IllegalArgumentException("Maximum " + MAX_PARTICIPANTS + " participants allowed per group");
-        }
-        
-        // Validate participant uniqueness (case-sensitive)
-        Set<String> uniqueParticipants = new HashSet<>(request.getParticipants());
-        if (uniqueParticipants.size() != request.getParticipants().size()) {
-            throw new IllegalArgumentException("Duplicate participant names are not allowed");
-        }
-        
         // Create and save group
         Group group = new Group();
         group.setGroupName(request.getGroupName());
@@ -56,60 +94,67 @@ public class GroupService {
         group.prePersist();
         
         Group savedGroup = groupRepository.save(group);
+        balanceLedgerService.openAccounts(savedGroup.getGroupId(), savedGroup.getParticipants());
+        eventPublisher.publishEvent(GroupChangedEvent.groupCreated(savedGroup));
         
-        return mapToResponse(savedGroup, 0.0);
+        return mapToResponse(savedGroup, null);
     }
     
     public List<GroupResponse> getAllGroups() {
-        List<Group> groups = groupRepository.findAll();
+        List<Group> groups = groupRepository.findAllWithParticipants();
+        
+        // Totals for every group in one aggregate query
+        Map<String, GroupExpenseSummary> summaries = expenseRepository.summarizeByGroup().stream()
+                .collect(Collectors.toMap(GroupExpenseSummary::getGroupId, Function.identity()));
         
         return groups.stream()
-                .map(group -> {
-                    // Calculate total expense for this group
-                    List<Expense> expenses = expenseRepository.findByGroupIdOrderByDateDesc(group.getGroupId());
-                    double totalExpense = expenses.stream()
-                            .mapToDouble(Expense::getAmount)
-                            .sum();
-                    
-                    return mapToResponse(group, totalExpense);
-                })
+                .map(group -> mapToResponse(group, summaries.get(group.getGroupId())))
                 .collect(Collectors.toList());
     }
     
     public GroupResponse getGroupById(String groupId) {
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new IllegalArgumentException("Group not found: " + groupId));
-        
-        // Calculate total expense
-        List<Expense> expenses = expenseRepository.findByGroupIdOrderByDateDesc(groupId);
-        double totalExpense = expenses.stream()
-                .mapToDouble(Expense::getAmount)
-                .sum();
+        Group group = groupCache.get(groupId);
         
-        return mapToResponse(group, totalExpense);
+        return mapToResponse(group, expenseRepository.summarizeGroup(groupId).orElse(null));
+    }
+    
+    public void checkGroupExists(String groupId) {
+        groupCache.get(groupId);
     }
     
-    @Transactional
     public void deleteGroup(String groupId) {
-        // Verify group exists
-        if (!groupRepository.existsById(groupId)) {
+        writeTransactions.executeWithoutResult(() -> removeGroup(groupId));
+    }
+    
+    private void removeGroup(String groupId) {
+        // Waits for the group's writers in flight; later ones find the group gone
+        if (groupRepository.lockById(groupId).isEmpty()) {
             throw new IllegalArgumentException("Group not found: " + groupId);
         }
         
-        // Delete all expenses for this group
-        expenseRepository.deleteByGroupId(groupId);
+        // Set-based, or tombstoned and purged after the commit when the group is large
+        groupPurgeService.deleteHistory(groupId);
+        balanceLedgerService.deleteBalances(groupId);
         
         // Delete the group
         groupRepository.deleteById(groupId);
+        // Dropped again after the commit, in case a concurrent read cached it meanwhile
+        groupCache.invalidate(groupId);
+        eventPublisher.publishEvent(new GroupChangedEvent(groupId, GroupChangedEvent.ChangeType.GROUP_DELETED));
     }
     
-    private GroupResponse mapToResponse(Group group, Double totalExpense) {
+    private GroupResponse mapToResponse(Group group, GroupExpenseSummary summary) {
+        // Groups without expenses have no summary row
+        long totalCents = summary != null ? summary.getTotalCents() : 0;
+        
         return GroupResponse.builder()
                 .groupId(group.getGroupId())
                 .groupName(group.getGroupName())
                 .participants(group.getParticipants())
                 .participantCount(group.getParticipants().size())
-                .totalExpense(totalExpense)
+                .totalExpense(Money.toAmount(totalCents))
+                .expenseCount(summary != null ? summary.getExpenseCount() : 0L)
+                .lastExpenseDate(summary != null ? summary.getLastExpenseDate() : null)
                 .createdAt(group.getCreatedAt())
                 .build();
     }
@@ -0,0 +1,347 @@
+package com.fairsplit.service;
+
+import com.fairsplit.dto.GroupUpdateResponse;
+import com.fairsplit.dto.SettlementResponse;
+import com.fairsplit.event.GroupChangedEvent;
+import com.fairsplit.model.Expense;
+import com.fairsplit.model.Money;
+import com.fairsplit.model.SplitType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes committed changes of a group to its server-sent event subscribers.
+ * <p>
+ * An update is computed once per change and only for groups someone is watching, then queued
+ * to each subscriber. Queues are bounded: a subscriber that falls {@code buffer-size} events
+ * behind, or whose write blocks for longer than {@code write-timeout}, is disconnected rather
+ * than buffered for, and can reconnect and re-fetch. Queues are drained by a fixed pool of
+ * {@code sender-threads}, so open streams cost no thread while idle, however many there are.
+ * Writes block on the client's socket: a client stuck in one is dropped after
+ * {@code write-timeout}, and its sender is freed when the container gives up on the write.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GroupUpdateBroadcaster {
+
+    // Larger imports are announced by count only
+    private static final int MAX_PUSHED_EXPENSES = 100;
+    // Marks the end of a subscriber's stream
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> END = new LinkedHashSet<>();
+
+    private final GroupCache groupCache;
+    private final ExpenseService expenseService;
+    private final SettlementService settlementService;
+    private final GroupVersionTracker groupVersionTracker;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Value("${fairsplit.events.buffer-size:32}")
+    private int bufferSize;
+
+    @Value("${fairsplit.events.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${fairsplit.events.heartbeat:25s}")
+    private Duration heartbeat;
+
+    @Value("${fairsplit.events.write-timeout:10s}")
+    private Duration writeTimeout;
+
+    @Value("${fairsplit.events.sender-threads:4}")
+    private int senderThreads;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    // One thread computes updates, so each group's updates are queued in commit order
+    private ExecutorService fanOut;
+    private ExecutorService senders;
+    private ScheduledExecutorService heartbeats;
+    private Counter dropped;
+
+    @PostConstruct
+    void start() {
+        fanOut = Executors.newSingleThreadExecutor(daemon("group-updates"));
+        senders = Executors.newFixedThreadPool(senderThreads, daemon("group-updates-send"));
+        heartbeats = Executors.newSingleThreadScheduledExecutor(daemon("group-updates-heartbeat"));
+        heartbeats.scheduleWithFixedDelay(this::sendHeartbeats,
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        long sweep = Math.max(100, writeTimeout.toMillis() / 2);
+        heartbeats.scheduleWithFixedDelay(this::dropStalledWriters, sweep, sweep, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("fairsplit.events.subscribers", subscribers,
+                        map -> map.values().stream().mapToInt(Set::size).sum())
+                .description("Open group update streams")
+                .register(meterRegistry);
+        dropped = Counter.builder("fairsplit.events.dropped")
+                .description("Update streams closed because the client fell behind")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeats.shutdownNow();
+        fanOut.shutdownNow();
+        subscribers.values().forEach(group -> group.forEach(subscriber -> subscriber.offer(END)));
+        senders.shutdown();
+    }
+
+    public SseEmitter subscribe(String groupId) {
+        // Validate group exists
+        groupCache.get(groupId);
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(groupId, emitter);
+        subscribers.computeIfAbsent(groupId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroupChanged(GroupChangedEvent event) {
+        // Nobody watching: no work at all
+        if (!subscribers.containsKey(event.getGroupId())) {
+            return;
+        }
+        fanOut.execute(() -> {
+            try {
+                publish(event);
+            } catch (RuntimeException e) {
+                log.warn("Could not push {} to subscribers: {}", event, e.getMessage());
+            }
+        });
+    }
+
+    private void publish(GroupChangedEvent event) {
+        Set<Subscriber> viewers = subscribers.get(event.getGroupId());
+        if (viewers == null || viewers.isEmpty()) {
+            return;
+        }
+
+        // Built and serialized once, then written as is to every subscriber
+        Set<ResponseBodyEmitter.DataWithMediaType> update;
+        switch (event.getChangeType()) {
+            case EXPENSES_ADDED -> update = frame("expenses-added",
+                    expensesAdded(event.getGroupId(), event.getExpenses()));
+            case LEDGER_REBUILT -> update = frame("balances-changed", balancesChanged(event.getGroupId()));
+            case GROUP_DELETED -> {
+                Set<ResponseBodyEmitter.DataWithMediaType> deleted =
+                        frame("group-deleted", Map.of("groupId", event.getGroupId()));
+                viewers.forEach(subscriber -> {
+                    subscriber.offer(deleted);
+                    subscriber.offer(END);
+                });
+                return;
+            }
+            default -> {
+                return;
+            }
+        }
+        viewers.forEach(subscriber -> subscriber.offer(update));
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> frame(String name, Object data) {
+        try {
+            return SseEmitter.event().name(name).data(objectMapper.writeValueAsString(data)).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + name, e);
+        }
+    }
+
+    private GroupUpdateResponse expensesAdded(String groupId, List<Expense> expenses) {
+        long version = groupVersionTracker.currentVersion(groupId);
+        SettlementResponse settlement = settlementService.calculateSettlements(groupId);
+        List<String> participants = groupCache.get(groupId).getParticipants();
+
+        // Equal splits change every member's share; otherwise only payers and contributors
+        Map<String, SettlementResponse.MemberBalance> balances = settlement.getMemberBalances();
+        if (expenses.stream().noneMatch(expense -> expense.getSplitType() == SplitType.EQUAL)) {
+            Set<String> affected = new HashSet<>();
+            for (Expense expense : expenses) {
+                affected.add(participants.get(expense.getPayerId()));
+                expense.getContributions().keySet().forEach(participantId -> affected.add(participants.get(participantId)));
+            }
+            balances = balances.entrySet().stream()
+                    .filter(entry -> affected.contains(entry.getKey()))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+
+        return GroupUpdateResponse.builder()
+                .groupId(groupId)
+                .version(version)
+                .expenseCount(expenses.size())
+                .totalExpense(totalPaid(settlement))
+                .expenses(expenses.size() <= MAX_PUSHED_EXPENSES ? expenseService.mapToResponses(participants, expenses) : null)
+                .memberBalances(balances)
+                .settlements(settlement.getSettlements())
+                .build();
+    }
+
+    private GroupUpdateResponse balancesChanged(String groupId) {
+        long version = groupVersionTracker.currentVersion(groupId);
+        SettlementResponse settlement = settlementService.calculateSettlements(groupId);
+        return GroupUpdateResponse.builder()
+                .groupId(groupId)
+                .version(version)
+                .expenseCount(0)
+                .totalExpense(totalPaid(settlement))
+                .memberBalances(settlement.getMemberBalances())
+                .settlements(settlement.getSettlements())
+                .build();
+    }
+
+    // Everything spent in the group was paid by one of its members
+    private static double totalPaid(SettlementResponse settlement) {
+        long cents = 0;
+        for (SettlementResponse.MemberBalance balance : settlement.getMemberBalances().values()) {
+            cents += Money.toCents(balance.getTotalPaid());
+        }
+        return Money.toAmount(cents);
+    }
+
+    private void sendHeartbeats() {
+        // Keeps idle connections open through proxies, and finds clients that stopped reading
+        Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("keep-alive").build();
+        subscribers.values().forEach(group -> group.forEach(subscriber -> subscriber.offer(ping)));
+    }
+
+    private void dropStalledWriters() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(group -> group.forEach(subscriber -> subscriber.checkWrite(now)));
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.groupId, (id, group) -> {
+            group.remove(subscriber);
+            return group.isEmpty() ? null : group;
+        });
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One open stream. Events are written by at most one sender thread at a time, in order;
+     * the stream is also completed on that thread, never by the one queueing events. A write
+     * that outlasts the timeout drops the subscriber at once; its sender thread is released when
+     * the container gives up on the write.
+     */
+    private final class Subscriber implements Runnable {
+
+        private final String groupId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // System.nanoTime() when the current write started, 0 when not writing
+        private volatile long writeStarted;
+
+        Subscriber(String groupId, SseEmitter emitter) {
+            this.groupId = groupId;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                drop();
+            }
+            schedule();
+        }
+
+        void checkWrite(long now) {
+            long started = writeStarted;
+            if (started != 0 && now - started > writeTimeout.toNanos()) {
+                drop();
+                queue.clear();
+            }
+        }
+
+        // The queueing and sweeping threads can both find the subscriber too slow; count it once
+        private void drop() {
+            if (closed.compareAndSet(false, true)) {
+                log.debug("Dropping slow subscriber of group {}", groupId);
+                dropped.increment();
+                remove(this);
+            }
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (Set<ResponseBodyEmitter.DataWithMediaType> event = queue.poll(); event != null && !closed.get(); event = queue.poll()) {
+                    if (event == END) {
+                        closed.set(true);
+                    } else {
+                        writeStarted = System.nanoTime();
+                        try {
+                            emitter.send(event);
+                        } finally {
+                            writeStarted = 0;
+                        }
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away
+                closed.set(true);
+            } finally {
+                if (closed.get()) {
+                    remove(this);
+                    queue.clear();
+                    emitter.complete();
+                }
+                draining.set(false);
+            }
+            // An event may have been queued after the last poll, while the flag was still set
+            if (!closed.get() && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.fairsplit.service;
+
+import com.fairsplit.event.GroupChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonically increasing per-group modification counter, bumped after every committed write,
+ * plus one counter across all groups.
+ * <p>
+ * Readers take the version before loading data, so anything derived from that data and stored
+ * under the version can only ever be older than the version says, never newer.
+ * <p>
+ * Counters live in memory and restart from zero, so entity tags also carry the boot epoch.
+ */
+@Component
+public class GroupVersionTracker {
+    
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    
+    public long currentVersion(String groupId) {
+        AtomicLong version = versions.get(groupId);
+        return version != null ? version.get() : 0;
+    }
+    
+    /**
+     * Strong entity tag for anything derived from one group's data.
+     */
+    public String groupTag(String groupId) {
+        return "\"" + epoch + "-" + currentVersion(groupId) + "\"";
+    }
+    
+    /**
+     * Strong entity tag for anything derived from every group's data.
+     */
+    public String allGroupsTag() {
+        return "\"" + epoch + "-" + globalVersion.get() + "\"";
+    }
+    
+    // Before any other listener, so what they read after the commit is stored under the new version
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroupChanged(GroupChangedEvent event) {
+        versions.computeIfAbsent(event.getGroupId(), id -> new AtomicLong()).incrementAndGet();
+        globalVersion.incrementAndGet();
+    }
+}
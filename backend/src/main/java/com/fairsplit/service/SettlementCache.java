@@ -0,0 +1,85 @@
+package com.fairsplit.service;
+
+import com.fairsplit.dto.CacheStatsResponse;
+import com.fairsplit.dto.SettlementResponse;
+import com.fairsplit.event.GroupChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of computed settlements, one entry per group and mode.
+ * <p>
+ * Each entry remembers the group version it was computed at and only answers reads for that
+ * exact version, so a write invalidates it simply by bumping the version in
+ * {@link GroupVersionTracker}. Deleted groups are dropped eagerly.
+ */
+@Component
+public class SettlementCache {
+    
+    private final Cache<String, VersionedSettlement> cache;
+    
+    // Counted here rather than by Caffeine: an entry at an old version is a miss, not a hit
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    public SettlementCache(
+            @Value("${fairsplit.settlement.cache.max-size:10000}") long maxSize,
+            @Value("${fairsplit.settlement.cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+    
+    public SettlementResponse get(String groupId, long version, boolean exact) {
+        VersionedSettlement entry = cache.getIfPresent(key(groupId, exact));
+        if (entry == null || entry.version() != version) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.response();
+    }
+    
+    public void put(String groupId, long version, boolean exact, SettlementResponse response) {
+        // A slow reader must not replace a result computed at a newer version
+        cache.asMap().merge(key(groupId, exact), new VersionedSettlement(version, response),
+                (current, candidate) -> candidate.version() >= current.version() ? candidate : current);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroupChanged(GroupChangedEvent event) {
+        if (event.getChangeType() == GroupChangedEvent.ChangeType.GROUP_DELETED) {
+            cache.invalidate(key(event.getGroupId(), false));
+            cache.invalidate(key(event.getGroupId(), true));
+        }
+    }
+    
+    public CacheStatsResponse getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        return CacheStatsResponse.builder()
+                .name("settlements")
+                .size(cache.estimatedSize())
+                .hitCount(hitCount)
+                .missCount(missCount)
+                .hitRate(requests == 0 ? 1.0 : (double) hitCount / requests)
+                .evictionCount(cache.stats().evictionCount())
+                .build();
+    }
+    
+    private static String key(String groupId, boolean exact) {
+        return exact ? groupId + ":exact" : groupId;
+    }
+    
+    private record VersionedSettlement(long version, SettlementResponse response) {
+    }
+}
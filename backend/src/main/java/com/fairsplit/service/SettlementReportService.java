@@ -0,0 +1,155 @@
+package com.fairsplit.service;
+
+import com.fairsplit.dto.GroupSettlementResponse;
+import com.fairsplit.dto.SettlementResponse;
+import com.fairsplit.repository.GroupBalanceRepository;
+import com.fairsplit.repository.GroupName;
+import com.fairsplit.repository.GroupRepository;
+import com.fairsplit.repository.ParticipantBalance;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Settles every group in one pass: the ledger is read in chunks of groups, in id order, and
+ * each group is settled on a bounded pool while the next chunk is being read. Results are
+ * handed to the caller as they complete, so their order is not defined.
+ * <p>
+ * No transaction spans the report: each chunk is two short reads, so a slow caller holds no
+ * pooled connection while it writes. Each group's rows come from one statement and are
+ * consistent with each other; groups created or deleted during the report may or may not appear.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SettlementReportService {
+
+    private final GroupRepository groupRepository;
+    private final GroupBalanceRepository groupBalanceRepository;
+    private final SettlementService settlementService;
+
+    // 0 uses one thread per available core
+    @Value("${fairsplit.settlement.report.parallelism:0}")
+    private int parallelism;
+
+    @Value("${fairsplit.settlement.report.chunk-size:200}")
+    private int chunkSize;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void startPool() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void stopPool() {
+        pool.shutdownNow();
+    }
+
+    public void reportAll(boolean exact, Consumer<GroupSettlementResponse> sink) {
+        long start = System.nanoTime();
+
+        CompletionService<GroupSettlementResponse> completed = new ExecutorCompletionService<>(pool);
+        // Caps the settled groups waiting for a slow reader
+        int maxInFlight = pool.getParallelism() * 4;
+        int submitted = 0;
+        int emitted = 0;
+
+        String afterId = "";
+        while (true) {
+            List<GroupName> groups = groupRepository.findNamesAfter(afterId, PageRequest.of(0, chunkSize));
+            if (groups.isEmpty()) {
+                break;
+            }
+            afterId = groups.get(groups.size() - 1).getGroupId();
+            Map<String, String> names = groups.stream()
+                    .collect(Collectors.toMap(GroupName::getGroupId, GroupName::getGroupName));
+            Map<String, List<ParticipantBalance>> members = groupBalanceRepository.findEffectiveByGroupIds(names.keySet())
+                    .stream()
+                    .collect(Collectors.groupingBy(ParticipantBalance::groupId, LinkedHashMap::new, Collectors.toList()));
+
+            for (Map.Entry<String, List<ParticipantBalance>> group : members.entrySet()) {
+                String groupId = group.getKey();
+                String groupName = names.get(groupId);
+                List<ParticipantBalance> balances = group.getValue();
+                completed.submit(() -> toReport(groupId, groupName, settle(balances, exact)));
+                submitted++;
+
+                while (submitted - emitted >= maxInFlight) {
+                    sink.accept(take(completed));
+                    emitted++;
+                }
+                for (Future<GroupSettlementResponse> done = completed.poll(); done != null; done = completed.poll()) {
+                    sink.accept(get(done));
+                    emitted++;
+                }
+            }
+        }
+
+        while (emitted < submitted) {
+            sink.accept(take(completed));
+            emitted++;
+        }
+        log.info("Settled {} groups on {} threads in {} ms", submitted, pool.getParallelism(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private SettlementResponse settle(List<ParticipantBalance> members, boolean exact) {
+        String[] participants = new String[members.size()];
+        long[] paidCents = new long[members.size()];
+        long[] owedCents = new long[members.size()];
+        for (int i = 0; i < participants.length; i++) {
+            ParticipantBalance member = members.get(i);
+            participants[i] = member.participant();
+            paidCents[i] = member.totalPaidCents();
+            owedCents[i] = member.totalOwedCents();
+        }
+        return settlementService.settle(participants, paidCents, owedCents, exact);
+    }
+
+    private GroupSettlementResponse toReport(String groupId, String groupName, SettlementResponse settlement) {
+        return GroupSettlementResponse.builder()
+                .groupId(groupId)
+                .groupName(groupName)
+                .settlements(settlement.getSettlements())
+                .memberBalances(settlement.getMemberBalances())
+                .strategy(settlement.getStrategy())
+                .build();
+    }
+
+    private GroupSettlementResponse take(CompletionService<GroupSettlementResponse> completed) {
+        try {
+            return get(completed.take());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while settling groups", e);
+        }
+    }
+
+    private GroupSettlementResponse get(Future<GroupSettlementResponse> done) {
+        try {
+            return done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while settling groups", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+    }
+}
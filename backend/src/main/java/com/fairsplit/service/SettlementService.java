@@ -1,197 +1,165 @@
 package com.fairsplit.service;
 
 import com.fairsplit.dto.SettlementResponse;
-import com.fairsplit.model.Expense;
-import com.fairsplit.repository.ExpenseRepository;
-import com.fairsplit.repository.GroupRepository;
+import com.fairsplit.metrics.FairSplitMetrics;
+import com.fairsplit.model.Group;
+import com.fairsplit.model.GroupBalance;
+import com.fairsplit.model.Money;
+import com.fairsplit.model.SettlementStrategy;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class SettlementService {
     
-    private final ExpenseRepository expenseRepository;
-    private final GroupRepository groupRepository;
+    private final GroupCache groupCache;
+    private final BalanceLedgerService balanceLedgerService;
+    private final ExactSettlementSolver exactSettlementSolver;
+    private final GroupVersionTracker groupVersionTracker;
+    private final SettlementCache settlementCache;
+    private final FairSplitMetrics metrics;
     
     public SettlementResponse calculateSettlements(String groupId) {
-        // Validate group exists
-        if (!groupRepository.existsById(groupId)) {
-            throw new IllegalArgumentException("Group not found: " + groupId);
+        return calculateSettlements(groupId, "greedy");
+    }
+    
+    public SettlementResponse calculateSettlements(String groupId, String mode) {
+        boolean exact = parseExactMode(mode);
+        Timer.Sample sample = metrics.startTimer();
+        
+        // Unchanged groups are answered from the cache without touching the database.
+        // The version is read first so a concurrent write can only make the entry stale, never wrong.
+        long version = groupVersionTracker.currentVersion(groupId);
+        SettlementResponse cached = settlementCache.get(groupId, version, exact);
+        if (cached != null) {
+            metrics.recordSettlement(sample, cached.getMemberBalances().size(), exact, true);
+            return cached;
         }
         
-        List<Expense> expenses = expenseRepository.findByGroupIdOrderByDateDesc(groupId);
+        // Validate group exists; its participant list names the ledger's participant ids
+        Group group = groupCache.get(groupId);
         
-        // Calculate net balances
-        Map<String, BigDecimal> netBalances = calculateNetBalances(expenses);
+        // One ledger row per member instead of replaying every expense
+        List<GroupBalance> balances = balanceLedgerService.getBalances(groupId);
+        SettlementResponse response = settle(group.getParticipants(), balances, exact);
         
-        // Calculate member balances for response
-        Map<String, SettlementResponse.MemberBalance> memberBalances = getMemberBalances(expenses);
+        settlementCache.put(groupId, version, exact, response);
+        metrics.recordSettlement(sample, balances.size(), exact, false);
+        return response;
+    }
+    
+    /**
+     * Settles only the expenses dated from {@code from} to {@code to} inclusive, either end open,
+     * or those dated up to {@code asOf}. Answered from the daily balance index with one lookup
+     * per end of the range; without any date this is {@link #calculateSettlements(String, String)}.
+     */
+    public SettlementResponse calculateSettlements(String groupId, String mode, LocalDate asOf, LocalDate from, LocalDate to) {
+        checkPeriod(asOf, from, to);
+        if (asOf == null && from == null && to == null) {
+            return calculateSettlements(groupId, mode);
+        }
+        boolean exact = parseExactMode(mode);
+        Timer.Sample sample = metrics.startTimer();
         
-        // Optimize transactions
-        List<SettlementResponse.Settlement> settlements = optimizeTransactions(netBalances);
+        Group group = groupCache.get(groupId);
+        List<GroupBalance> balances = balanceLedgerService.getBalances(groupId, group.getParticipants().size(),
+                from, asOf != null ? asOf : to);
+        SettlementResponse response = settle(group.getParticipants(), balances, exact);
         
-        return SettlementResponse.builder()
-                .settlements(settlements)
-                .memberBalances(memberBalances)
-                .build();
+        metrics.recordSettlement(sample, balances.size(), exact, false);
+        return response;
     }
     
-    private Map<String, BigDecimal> calculateNetBalances(List<Expense> expenses) {
-        Map<String, BigDecimal> netBalances = new HashMap<>();
-        
-        for (Expense expense : expenses) {
-            String payer = expense.getPaidBy();
-            BigDecimal amount = BigDecimal.valueOf(expense.getAmount());
-            
-            // Add amount paid by payer
-            netBalances.merge(payer, amount, BigDecimal::add);
-            
-            // Subtract contributions from each participant
-            Map<String, Double> contributions = expense.getContributions();
-            for (Map.Entry<String, Double> entry : contributions.entrySet()) {
-                String participant = entry.getKey();
-                BigDecimal contribution = BigDecimal.valueOf(entry.getValue());
-                netBalances.merge(participant, contribution.negate(), BigDecimal::add);
-            }
+    public void checkPeriod(LocalDate asOf, LocalDate from, LocalDate to) {
+        if (asOf != null && (from != null || to != null)) {
+            throw new IllegalArgumentException("Use either asOf or from/to, not both");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
         }
-        
-        // Round all balances to 2 decimal places
-        return netBalances.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        e -> e.getValue().setScale(2, RoundingMode.HALF_UP)
-                ));
     }
     
-    private List<SettlementResponse.Settlement> optimizeTransactions(Map<String, BigDecimal> netBalances) {
-        List<SettlementResponse.Settlement> settlements = new ArrayList<>();
-        
-        // Separate creditors (positive balance) and debtors (negative balance)
-        List<Map.Entry<String, BigDecimal>> creditors = netBalances.entrySet().stream()
-                .filter(e -> e.getValue().compareTo(BigDecimal.ZERO) > 0)
-                .sorted((a, b) -> b.getValue().compareTo(a.getValue())) // Sort descending
-                .collect(Collectors.toList());
-        
-        List<Map.Entry<String, BigDecimal>> debtors = netBalances.entrySet().stream()
-                .filter(e -> e.getValue().compareTo(BigDecimal.ZERO) < 0)
-                .sorted(Comparator.comparing(e -> e.getValue())) // Sort ascending (most negative first)
-                .collect(Collectors.toList());
-        
-        // Create mutable copies
-        Map<String, BigDecimal> creditorBalances = new HashMap<>();
-        for (Map.Entry<String, BigDecimal> entry : creditors) {
-            creditorBalances.put(entry.getKey(), entry.getValue());
+    /**
+     * Settles one group from its ledger rows: totals are gathered into arrays indexed by
+     * participant id, and names are only attached to the response.
+     */
+    SettlementResponse settle(List<String> participantNames, List<GroupBalance> balances, boolean exact) {
+        String[] participants = participantNames.toArray(new String[0]);
+        long[] paidCents = new long[participants.length];
+        long[] owedCents = new long[participants.length];
+        for (GroupBalance balance : balances) {
+            paidCents[balance.getParticipantId()] = balance.getTotalPaidCents();
+            owedCents[balance.getParticipantId()] = balance.getTotalOwedCents();
         }
+        return settle(participants, paidCents, owedCents, exact);
+    }
+    
+    /**
+     * Settles one group from index-aligned names and effective totals, without the cache or metrics.
+     */
+    SettlementResponse settle(String[] participants, long[] paidCents, long[] owedCents, boolean exact) {
+        long[] netBalances = calculateNetBalances(paidCents, owedCents);
         
-        Map<String, BigDecimal> debtorBalances = new HashMap<>();
-        for (Map.Entry<String, BigDecimal> entry : debtors) {
-            debtorBalances.put(entry.getKey(), entry.getValue());
+        // Calculate member balances for response
+        Map<String, SettlementResponse.MemberBalance> memberBalances = getMemberBalances(participants, paidCents, owedCents);
+        
+        // Optimize transactions, trying for the fewest transfers first when asked to
+        SettlementStrategy strategy = SettlementStrategy.GREEDY;
+        List<SettlementResponse.Settlement> settlements = null;
+        if (exact) {
+            settlements = exactSettlementSolver.solve(participants, netBalances).orElse(null);
+            strategy = settlements != null ? SettlementStrategy.EXACT : SettlementStrategy.GREEDY_FALLBACK;
         }
-        
-        // Greedy algorithm: match largest creditor with largest debtor
-        while (!creditorBalances.isEmpty() && !debtorBalances.isEmpty()) {
-            // Get largest creditor
-            Map.Entry<String, BigDecimal> maxCreditor = creditorBalances.entrySet().stream()
-                    .max(Comparator.comparing(Map.Entry::getValue))
-                    .orElse(null);
-            
-            // Get largest debtor (most negative)
-            Map.Entry<String, BigDecimal> maxDebtor = debtorBalances.entrySet().stream()
-                    .min(Comparator.comparing(Map.Entry::getValue))
-                    .orElse(null);
-            
-            if (maxCreditor == null || maxDebtor == null) {
-                break;
-            }
-            
-            String creditor = maxCreditor.getKey();
-            String debtor = maxDebtor.getKey();
-            BigDecimal creditorAmount = maxCreditor.getValue();
-            BigDecimal debtorAmount = maxDebtor.getValue().abs();
-            
-            // Transfer minimum of the two amounts
-            BigDecimal transferAmount = creditorAmount.min(debtorAmount);
-            
-            // Create settlement
-            settlements.add(SettlementResponse.Settlement.builder()
-                    .from(debtor)
-                    .to(creditor)
-                    .amount(roundToTwoDecimals(transferAmount.doubleValue()))
-                    .build());
-            
-            // Update balances
-            BigDecimal newCreditorBalance = creditorAmount.subtract(transferAmount);
-            BigDecimal newDebtorBalance = debtorAmount.subtract(transferAmount);
-            
-            // Remove or update creditor
-            if (newCreditorBalance.compareTo(BigDecimal.valueOf(0.01)) < 0) {
-                creditorBalances.remove(creditor);
-            } else {
-                creditorBalances.put(creditor, newCreditorBalance);
-            }
-            
-            // Remove or update debtor
-            if (newDebtorBalance.compareTo(BigDecimal.valueOf(0.01)) < 0) {
-                debtorBalances.remove(debtor);
-            } else {
-                debtorBalances.put(debtor, newDebtorBalance.negate());
-            }
+        if (settlements == null) {
+            settlements = optimizeTransactions(participants, netBalances);
         }
         
-        return settlements;
+        return SettlementResponse.builder()
+                .settlements(settlements)
+                .memberBalances(memberBalances)
+                .strategy(strategy)
+                .build();
     }
     
-    private Map<String, SettlementResponse.MemberBalance> getMemberBalances(List<Expense> expenses) {
-        Map<String, BigDecimal> totalPaid = new HashMap<>();
-        Map<String, BigDecimal> totalOwed = new HashMap<>();
-        
-        for (Expense expense : expenses) {
-            String payer = expense.getPaidBy();
-            BigDecimal amount = BigDecimal.valueOf(expense.getAmount());
-            
-            // Track total paid
-            totalPaid.merge(payer, amount, BigDecimal::add);
-            
-            // Track total owed (contributions)
-            Map<String, Double> contributions = expense.getContributions();
-            for (Map.Entry<String, Double> entry : contributions.entrySet()) {
-                String participant = entry.getKey();
-                BigDecimal contribution = BigDecimal.valueOf(entry.getValue());
-                totalOwed.merge(participant, contribution, BigDecimal::add);
-            }
+    long[] calculateNetBalances(long[] paidCents, long[] owedCents) {
+        long[] netBalances = new long[paidCents.length];
+        for (int i = 0; i < netBalances.length; i++) {
+            netBalances[i] = paidCents[i] - owedCents[i];
         }
-        
-        // Get all participants
-        Set<String> allParticipants = new HashSet<>();
-        allParticipants.addAll(totalPaid.keySet());
-        allParticipants.addAll(totalOwed.keySet());
-        
-        // Build member balances
-        Map<String, SettlementResponse.MemberBalance> memberBalances = new HashMap<>();
-        for (String participant : allParticipants) {
-            BigDecimal paid = totalPaid.getOrDefault(participant, BigDecimal.ZERO);
-            BigDecimal owed = totalOwed.getOrDefault(participant, BigDecimal.ZERO);
-            BigDecimal netBalance = paid.subtract(owed);
-            
-            memberBalances.put(participant, SettlementResponse.MemberBalance.builder()
-                    .totalPaid(roundToTwoDecimals(paid.doubleValue()))
-                    .totalOwed(roundToTwoDecimals(owed.doubleValue()))
-                    .netBalance(roundToTwoDecimals(netBalance.doubleValue()))
+        return netBalances;
+    }
+    
+    List<SettlementResponse.Settlement> optimizeTransactions(String[] participants, long[] netBalances) {
+        // Greedy algorithm: match largest creditor with largest debtor
+        return GreedySettlementOptimizer.optimize(participants, netBalances);
+    }
+    
+    Map<String, SettlementResponse.MemberBalance> getMemberBalances(String[] participants, long[] paidCents, long[] owedCents) {
+        Map<String, SettlementResponse.MemberBalance> memberBalances = new HashMap<>(participants.length * 2);
+        
+        for (int i = 0; i < participants.length; i++) {
+            memberBalances.put(participants[i], SettlementResponse.MemberBalance.builder()
+                    .totalPaid(Money.toAmount(paidCents[i]))
+                    .totalOwed(Money.toAmount(owedCents[i]))
+                    .netBalance(Money.toAmount(paidCents[i] - owedCents[i]))
                     .build());
         }
         
         return memberBalances;
     }
     
-    private double roundToTwoDecimals(double value) {
-        return BigDecimal.valueOf(value)
-                .setScale(2, RoundingMode.HALF_UP)
-                .doubleValue();
+    public boolean parseExactMode(String mode) {
+        if (mode == null || mode.equalsIgnoreCase("greedy")) {
+            return false;
+        }
+        if (mode.equalsIgnoreCase("exact")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unknown settlement mode: " + mode + " (expected greedy or exact)");
     }
 }
@@ -0,0 +1,72 @@
+package com.fairsplit.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs writes in their own transaction, retried a bounded number of times when they lose a
+ * lock race. Writers of a group queue on its row lock, and under a burst of writes to one group
+ * a waiter can reach the database's lock timeout; it is then rolled back and tried again after
+ * a short randomized backoff, up to {@code max-attempts} in all.
+ * <p>
+ * A write called inside a caller's transaction joins it and runs once: a rolled-back part
+ * cannot be retried on its own, so retrying is left to whoever owns the transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WriteTransactions {
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${fairsplit.writes.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${fairsplit.writes.retry-backoff:20ms}")
+    private Duration retryBackoff;
+
+    public <T> T execute(Supplier<T> write) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return write.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> write.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Write lost a lock race (attempt {} of {}), retrying: {}", attempt, maxAttempts, e.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+
+    public void executeWithoutResult(Runnable write) {
+        execute(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    // Grows with each attempt; the random part keeps retried writers from colliding again
+    private void backOff(int attempt) {
+        long millis = retryBackoff.toMillis() * attempt;
+        try {
+            Thread.sleep(millis + ThreadLocalRandom.current().nextLong(millis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a write", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+-- Schema as mapped by the JPA entities
+
+create table groups (
+    group_id varchar(255) not null,
+    group_name varchar(255) not null unique,
+    -- Upper-cased copy for the case-insensitive name lookup (H2 has no expression indexes)
+    group_name_key varchar(255) generated always as (upper(group_name)),
+    created_at timestamp(6) not null,
+    equal_share_cents bigint not null default 0,
+    primary key (group_id)
+);
+
+create table group_participants (
+    group_id varchar(255) not null,
+    participant_order integer not null,
+    participant_name varchar(255),
+    primary key (group_id, participant_order)
+);
+
+create table expenses (
+    expense_id varchar(255) not null,
+    group_id varchar(255) not null,
+    description varchar(255) not null,
+    amount_cents bigint not null,
+    paid_by varchar(255) not null,
+    date date not null,
+    split_type varchar(255) not null check (split_type in ('EQUAL', 'CUSTOM')),
+    created_at timestamp(6) not null,
+    primary key (expense_id)
+);
+
+-- Custom splits only
+create table expense_contributions (
+    expense_id varchar(255) not null,
+    participant varchar(255) not null,
+    amount_cents bigint,
+    primary key (expense_id, participant)
+);
+
+create table group_balances (
+    balance_id varchar(255) not null,
+    group_id varchar(255) not null,
+    participant varchar(255) not null,
+    total_paid_cents bigint not null,
+    total_owed_cents bigint not null,
+    net_balance_cents bigint not null,
+    primary key (balance_id),
+    unique (group_id, participant)
+);
+
+-- Lookup indexes, created before the foreign keys so those reuse them
+create index idx_groups_name_key on groups (group_name_key);
+create index idx_group_participants_group on group_participants (group_id);
+-- Expense listing filters by group and orders by date, created_at, expense_id (keyset pages)
+create index idx_expenses_group_date on expenses (group_id, date, created_at, expense_id);
+create index idx_expense_contributions_expense on expense_contributions (expense_id);
+
+alter table group_participants add constraint fk_group_participants_group
+    foreign key (group_id) references groups;
+alter table expense_contributions add constraint fk_expense_contributions_expense
+    foreign key (expense_id) references expenses;
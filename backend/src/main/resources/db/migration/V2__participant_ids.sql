@@ -0,0 +1,50 @@
+-- Members are identified within their group by a dense integer id, their position in the
+-- group's participant list. Expenses, custom splits and ledger rows store that id instead
+-- of repeating the name.
+
+-- Custom splits could name people outside the group. Such a row has no id, and dropping it
+-- would leave its expense's shares short of the amount, so the migration stops before
+-- changing anything, naming this constraint, until those rows are corrected by hand.
+create local temporary table v2_preflight (ok boolean constraint ck_custom_splits_name_group_members check (ok));
+insert into v2_preflight select not exists (select 1 from expense_contributions c
+    join expenses e on e.expense_id = c.expense_id
+    where not exists (select 1 from group_participants p
+        where p.group_id = e.group_id and p.participant_name = c.participant));
+drop table v2_preflight;
+
+alter table group_participants alter column participant_order rename to participant_id;
+alter table group_participants alter column participant_name set not null;
+alter table group_participants add constraint uk_group_participants_name unique (group_id, participant_name);
+
+alter table expenses add column payer_id integer;
+update expenses e set payer_id = (select p.participant_id from group_participants p
+    where p.group_id = e.group_id and p.participant_name = e.paid_by);
+alter table expenses alter column payer_id set not null;
+alter table expenses drop column paid_by;
+
+alter table expense_contributions add column participant_id integer;
+update expense_contributions c set participant_id = (select p.participant_id from group_participants p
+    join expenses e on e.group_id = p.group_id
+    where e.expense_id = c.expense_id and p.participant_name = c.participant);
+alter table expense_contributions drop primary key;
+alter table expense_contributions drop column participant;
+alter table expense_contributions alter column participant_id set not null;
+alter table expense_contributions add primary key (expense_id, participant_id);
+
+-- Rebuilt rather than altered: the old unique key on the name column has a generated name
+create table group_balances_by_id (
+    balance_id varchar(255) not null,
+    group_id varchar(255) not null,
+    participant_id integer not null,
+    total_paid_cents bigint not null,
+    total_owed_cents bigint not null,
+    net_balance_cents bigint not null,
+    primary key (balance_id),
+    unique (group_id, participant_id)
+);
+insert into group_balances_by_id
+select b.balance_id, b.group_id, p.participant_id, b.total_paid_cents, b.total_owed_cents, b.net_balance_cents
+from group_balances b
+join group_participants p on p.group_id = b.group_id and p.participant_name = b.participant;
+drop table group_balances;
+alter table group_balances_by_id rename to group_balances;
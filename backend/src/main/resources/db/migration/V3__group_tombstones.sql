@@ -0,0 +1,6 @@
+-- Deleted groups whose expenses are still being purged in the background
+create table group_tombstones (
+    group_id varchar(255) not null,
+    deleted_at timestamp(6) not null,
+    primary key (group_id)
+);
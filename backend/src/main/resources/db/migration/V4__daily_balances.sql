@@ -0,0 +1,43 @@
+-- Running ledger totals per member and expense date, for settlements over a date range.
+-- Participant id -1 holds the per-head share of equal splits, owed by every member.
+create table daily_balances (
+    balance_id varchar(255) not null,
+    group_id varchar(255) not null,
+    participant_id integer not null,
+    balance_date date not null,
+    total_paid_cents bigint not null,
+    total_owed_cents bigint not null,
+    primary key (balance_id),
+    unique (group_id, participant_id, balance_date)
+);
+
+-- Each expense's ledger changes, summed per day and accumulated over the days before
+insert into daily_balances
+select cast(random_uuid() as varchar(255)), group_id, participant_id, balance_date,
+    sum(paid_cents) over (partition by group_id, participant_id order by balance_date),
+    sum(owed_cents) over (partition by group_id, participant_id order by balance_date)
+from (
+    select group_id, participant_id, balance_date, sum(paid_cents) as paid_cents, sum(owed_cents) as owed_cents
+    from (
+        select e.group_id, e.payer_id as participant_id, e.date as balance_date,
+            e.amount_cents as paid_cents, 0 as owed_cents
+        from expenses e
+        union all
+        select e.group_id, c.participant_id, e.date, 0, c.amount_cents
+        from expenses e join expense_contributions c on c.expense_id = e.expense_id
+        -- Equal splits as in Money.equalShare: the rounded share for everyone, and the
+        -- rounding remainder for the last participant
+        union all
+        select s.group_id, -1, s.date, 0, (2 * s.amount_cents + s.participants) / (2 * s.participants)
+        from (select e.group_id, e.date, e.amount_cents,
+            (select count(*) from group_participants p where p.group_id = e.group_id) as participants
+            from expenses e where e.split_type = 'EQUAL') s
+        union all
+        select s.group_id, s.participants - 1, s.date, 0,
+            s.amount_cents - s.participants * ((2 * s.amount_cents + s.participants) / (2 * s.participants))
+        from (select e.group_id, e.date, e.amount_cents,
+            (select count(*) from group_participants p where p.group_id = e.group_id) as participants
+            from expenses e where e.split_type = 'EQUAL') s
+    ) changes
+    group by group_id, participant_id, balance_date
+) days;
@@ -0,0 +1,5 @@
+-- Group names are unique regardless of case. The check before inserting cannot see a
+-- concurrent creation that has not committed yet; the unique index on the upper-cased
+-- name rejects whichever of the two commits second.
+drop index idx_groups_name_key;
+create unique index idx_groups_name_key on groups (group_name_key);
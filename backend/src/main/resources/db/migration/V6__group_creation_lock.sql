@@ -0,0 +1,8 @@
+-- One row that group creations lock before counting groups, so two instances sharing the
+-- database cannot both take the last free place
+create table group_creation_lock (
+    id integer not null,
+    primary key (id)
+);
+
+insert into group_creation_lock (id) values (1);
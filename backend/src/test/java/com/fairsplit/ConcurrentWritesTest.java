@@ -0,0 +1,226 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.dto.LedgerReconciliationResponse;
+import com.fairsplit.repository.GroupRepository;
+import com.fairsplit.service.BalanceLedgerService;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Many threads writing at once lose no expense or ledger update, never create two groups whose
+ * names differ only in case or more groups than the limit, and leave nothing behind a group
+ * deleted while expenses are being added to it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrent;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO",
+        "fairsplit.groups.max-groups=40"
+})
+@Slf4j
+public class ConcurrentWritesTest {
+
+    private static final int THREADS = 16;
+    private static final List<String> MEMBERS = List.of("Ann", "Ben", "Cat", "Dan", "Eve");
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentExpensesLoseNoUpdates() throws Exception {
+        List<String> groupIds = List.of(
+                groupService.createGroup(new GroupRequest("Busy", MEMBERS)).getGroupId(),
+                groupService.createGroup(new GroupRequest("Quiet", MEMBERS)).getGroupId());
+        AtomicLong addedCents = new AtomicLong();
+        AtomicInteger added = new AtomicInteger();
+
+        // Mostly the busy group, single expenses and small batches, equal and custom splits
+        long start = System.nanoTime();
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+            for (int i = 0; i < 40; i++) {
+                String groupId = groupIds.get(random.nextInt(4) == 0 ? 1 : 0);
+                List<ExpenseRequest> requests = new ArrayList<>();
+                for (int n = random.nextInt(3) == 0 ? 5 : 1; n > 0; n--) {
+                    requests.add(randomExpense(random));
+                }
+                if (requests.size() == 1) {
+                    expenseService.addExpense(groupId, requests.get(0));
+                } else {
+                    expenseService.addExpenses(groupId, requests);
+                }
+                added.addAndGet(requests.size());
+                requests.forEach(request -> addedCents.addAndGet(Math.round(request.getAmount() * 100)));
+            }
+            return null;
+        });
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("{} threads added {} expenses in {} ms", THREADS, added.get(), millis);
+
+        Long storedCents = jdbcTemplate.queryForObject("select coalesce(sum(amount_cents), 0) from expenses "
+                + "where group_id in (?, ?)", Long.class, groupIds.get(0), groupIds.get(1));
+        assert storedCents == addedCents.get() : "Stored " + storedCents + " cents, added " + addedCents.get();
+        for (String groupId : groupIds) {
+            LedgerReconciliationResponse report = balanceLedgerService.verify(groupId);
+            assert report.getConsistent() && report.getDailyIndexConsistent() : "Lost ledger updates: " + report;
+        }
+        Long ledgerPaid = jdbcTemplate.queryForObject("select sum(total_paid_cents) from group_balances "
+                + "where group_id in (?, ?)", Long.class, groupIds.get(0), groupIds.get(1));
+        assert ledgerPaid == addedCents.get() : "Ledger holds " + ledgerPaid + " cents paid, added " + addedCents.get();
+    }
+
+    @Test
+    void namesDifferingOnlyInCaseCreateOneGroup() throws Exception {
+        ConcurrentLinkedQueue<String> created = new ConcurrentLinkedQueue<>();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            String name = thread % 2 == 0 ? "Road Trip" : thread % 3 == 0 ? "ROAD TRIP" : "road trip";
+            try {
+                created.add(groupService.createGroup(new GroupRequest(name, MEMBERS)).getGroupId());
+            } catch (IllegalArgumentException e) {
+                assert e.getMessage().startsWith("Group name already exists") : e.getMessage();
+                rejected.incrementAndGet();
+            }
+            return null;
+        });
+
+        assert created.size() == 1 : created.size() + " groups created for one name";
+        assert rejected.get() == THREADS - 1 : rejected.get() + " creations rejected";
+        Long stored = jdbcTemplate.queryForObject(
+                "select count(*) from groups where group_name_key = 'ROAD TRIP'", Long.class);
+        assert stored == 1 : stored + " groups stored under one name";
+    }
+
+    @Test
+    void concurrentCreationStopsAtTheGroupLimit() throws Exception {
+        ConcurrentLinkedQueue<String> created = new ConcurrentLinkedQueue<>();
+
+        // More creations than free places, all at once
+        runConcurrently(thread -> {
+            for (int i = 0; i < 3; i++) {
+                try {
+                    created.add(groupService.createGroup(
+                            new GroupRequest("Limit " + thread + "-" + i, MEMBERS)).getGroupId());
+                } catch (IllegalStateException e) {
+                    assert e.getMessage().startsWith("Maximum group limit") : e.getMessage();
+                }
+            }
+            return null;
+        });
+
+        try {
+            assert groupRepository.count() <= 40 : groupRepository.count() + " groups exceed the limit of 40";
+        } finally {
+            // Free the places again for the other tests
+            created.forEach(groupService::deleteGroup);
+        }
+    }
+
+    @Test
+    void deletedGroupKeepsNoConcurrentlyAddedExpenses() throws Exception {
+        String groupId = groupService.createGroup(new GroupRequest("Doomed", MEMBERS)).getGroupId();
+        CountDownLatch writing = new CountDownLatch(THREADS);
+
+        ExecutorService deleter = Executors.newSingleThreadExecutor();
+        Future<?> deletion = deleter.submit(() -> {
+            writing.await();
+            groupService.deleteGroup(groupId);
+            return null;
+        });
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+            writing.countDown();
+            for (int i = 0; i < 20; i++) {
+                try {
+                    expenseService.addExpense(groupId, randomExpense(random));
+                } catch (IllegalArgumentException e) {
+                    // The group is gone: every later write must fail the same way
+                    assert e.getMessage().equals("Group not found: " + groupId) : e.getMessage();
+                }
+            }
+            return null;
+        });
+        deletion.get();
+        deleter.shutdown();
+
+        for (String table : List.of("expenses", "group_balances", "daily_balances")) {
+            Long rows = jdbcTemplate.queryForObject("select count(*) from " + table + " where group_id = ?",
+                    Long.class, groupId);
+            assert rows == 0 : rows + " rows left in " + table + " for the deleted group";
+        }
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int id = thread;
+            futures.add(executor.submit((Callable<Void>) () -> {
+                start.await();
+                return task.run(id);
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ExpenseRequest randomExpense(Random random) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setDescription("Concurrent");
+        request.setAmount((100 + random.nextInt(20_000)) / 100.0);
+        request.setPaidBy(MEMBERS.get(random.nextInt(MEMBERS.size())));
+        request.setDate(LocalDate.of(2024, 1, 1).plusDays(random.nextInt(30)));
+        if (random.nextBoolean()) {
+            String other = MEMBERS.get(random.nextInt(MEMBERS.size()));
+            request.setContributions(Map.of(other, request.getAmount()));
+        }
+        return request;
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        Void run(int thread) throws Exception;
+    }
+}
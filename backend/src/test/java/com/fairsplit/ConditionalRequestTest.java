@@ -0,0 +1,113 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Conditional reads: a current tag is answered with 304 without running a single query, any
+ * committed change to the group gives its resources a new tag, and no tag hides that a group
+ * is gone.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO"
+})
+@AutoConfigureMockMvc
+public class ConditionalRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void currentTagIsAnsweredWithoutQueries() throws Exception {
+        String groupId = groupService.createGroup(new GroupRequest("Tagged", List.of("Ann", "Ben"))).getGroupId();
+        expenseService.addExpense(groupId, expense("Dinner"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (String url : List.of("/api/groups", "/api/groups/" + groupId, "/api/groups/" + groupId + "/expenses",
+                "/api/groups/" + groupId + "/expenses?limit=10", "/api/groups/" + groupId + "/settlements?mode=exact")) {
+            MvcResult first = mockMvc.perform(get(url)).andReturn();
+            String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+            assert first.getResponse().getStatus() == 200 : url + " returned " + first.getResponse().getStatus();
+            assert etag != null && etag.startsWith("\"") : url + " has no strong tag: " + etag;
+
+            long statements = statistics.getPrepareStatementCount();
+            MvcResult second = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+            assert second.getResponse().getStatus() == 304 : url + " returned " + second.getResponse().getStatus();
+            assert second.getResponse().getContentLength() == 0 : url + " sent a body with its 304";
+            assert statistics.getPrepareStatementCount() == statements : url + " queried the database for a 304";
+        }
+    }
+
+    @Test
+    void committedChangeReplacesTheTag() throws Exception {
+        String groupId = groupService.createGroup(new GroupRequest("Changing", List.of("Ann", "Ben"))).getGroupId();
+        String url = "/api/groups/" + groupId + "/settlements";
+        String before = mockMvc.perform(get(url)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String listBefore = mockMvc.perform(get("/api/groups")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        expenseService.addExpense(groupId, expense("Taxi"));
+
+        MvcResult after = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, before)).andReturn();
+        assert after.getResponse().getStatus() == 200 : "A stale tag was answered with " + after.getResponse().getStatus();
+        assert !before.equals(after.getResponse().getHeader(HttpHeaders.ETAG)) : "The tag did not change";
+        MvcResult list = mockMvc.perform(get("/api/groups").header(HttpHeaders.IF_NONE_MATCH, listBefore)).andReturn();
+        assert list.getResponse().getStatus() == 200 : "A stale group list tag was answered with " + list.getResponse().getStatus();
+    }
+
+    @Test
+    void deletedOrUnknownGroupIsNotFoundWhateverTheTag() throws Exception {
+        String groupId = groupService.createGroup(new GroupRequest("Deleted", List.of("Ann", "Ben"))).getGroupId();
+        String url = "/api/groups/" + groupId + "/settlements";
+        String etag = mockMvc.perform(get(url)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        groupService.deleteGroup(groupId);
+
+        // An unknown group's counter starts at zero: its tag is this boot's epoch and 0
+        String unknownTag = etag.substring(0, etag.lastIndexOf('-')) + "-0\"";
+        for (String tag : List.of(etag, unknownTag)) {
+            for (String base : List.of("/api/groups/" + groupId, "/api/groups/unknown")) {
+                for (String suffix : List.of("", "/expenses", "/expenses?limit=10", "/settlements")) {
+                    MvcResult result = mockMvc.perform(get(base + suffix).header(HttpHeaders.IF_NONE_MATCH, tag)).andReturn();
+                    assert result.getResponse().getStatus() == 400
+                            && result.getResponse().getContentAsString().contains("Group not found")
+                            : base + suffix + " with " + tag + " returned " + result.getResponse().getStatus();
+                }
+            }
+        }
+    }
+
+    private ExpenseRequest expense(String description) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setDescription(description);
+        request.setAmount(30.0);
+        request.setPaidBy("Ann");
+        return request;
+    }
+}
@@ -0,0 +1,153 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.dto.LedgerReconciliationResponse;
+import com.fairsplit.dto.SettlementResponse;
+import com.fairsplit.service.BalanceLedgerService;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupService;
+import com.fairsplit.service.SettlementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Settlements over a date range, answered from the daily balance index, equal those of a group
+ * holding only the expenses in that range, however the expenses were dated and added.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:daterange;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO",
+        "fairsplit.groups.max-groups=50"
+})
+public class DateRangeSettlementTest {
+
+    private static final List<String> MEMBERS = List.of("Ann", "Ben", "Cat", "Dan", "Eve", "Fay", "Gus");
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private int windows;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void windowsMatchAGroupHoldingOnlyTheirExpenses() {
+        List<ExpenseRequest> expenses = randomExpenses(new Random(3), 200);
+        String groupId = groupService.createGroup(new GroupRequest("Dated", MEMBERS)).getGroupId();
+
+        // Shuffled and added in pieces, so most writes are backdated behind existing days
+        List<ExpenseRequest> shuffled = new ArrayList<>(expenses);
+        Collections.shuffle(shuffled, new Random(5));
+        expenseService.addExpenses(groupId, shuffled.subList(0, 100));
+        for (ExpenseRequest expense : shuffled.subList(100, 150)) {
+            expenseService.addExpense(groupId, expense);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (ExpenseRequest expense : shuffled.subList(150, 200)) {
+                expenseService.addExpense(groupId, expense);
+            }
+        });
+
+        assertWindow(groupId, expenses, null, START.plusDays(30), START.plusDays(30), null);
+        assertWindow(groupId, expenses, null, null, START.plusDays(45), null);
+        assertWindow(groupId, expenses, null, START.plusDays(10), START.plusDays(20), null);
+        assertWindow(groupId, expenses, null, START.plusDays(25), null, null);
+        assertWindow(groupId, expenses, null, START.plusDays(7), START.plusDays(7), null);
+        assertWindow(groupId, expenses, null, START.minusDays(10), START.minusDays(1), null);
+        assertWindow(groupId, expenses, START.plusDays(59), null, null, null);
+
+        LedgerReconciliationResponse verified = balanceLedgerService.verify(groupId);
+        assert verified.getConsistent() && verified.getDailyIndexConsistent()
+                : "Daily index does not match the expenses: " + verified;
+
+        jdbcTemplate.update("update daily_balances set total_paid_cents = total_paid_cents + 7 "
+                + "where group_id = ? and participant_id = 1", groupId);
+        LedgerReconciliationResponse damaged = balanceLedgerService.verify(groupId);
+        assert !damaged.getDailyIndexConsistent() : "Damaged daily index was reported consistent";
+        assert balanceLedgerService.rebuild(groupId).getRebuilt() : "Damaged daily index was not rebuilt";
+        assert balanceLedgerService.verify(groupId).getDailyIndexConsistent() : "Rebuilt daily index is inconsistent";
+        assertWindow(groupId, expenses, null, START.plusDays(10), START.plusDays(20), null);
+    }
+
+    @Test
+    void rejectsAmbiguousOrEmptyPeriods() {
+        String groupId = groupService.createGroup(new GroupRequest("Periods", List.of("Ann", "Ben"))).getGroupId();
+        assertRejected(groupId, LocalDate.of(2024, 3, 31), LocalDate.of(2024, 3, 1), null);
+        assertRejected(groupId, null, LocalDate.of(2024, 4, 1), LocalDate.of(2024, 3, 1));
+    }
+
+    private void assertWindow(String groupId, List<ExpenseRequest> expenses, LocalDate asOf,
+                              LocalDate from, LocalDate to, String mode) {
+        LocalDate end = asOf != null ? asOf : to;
+        List<ExpenseRequest> inWindow = expenses.stream()
+                .filter(expense -> (from == null || !expense.getDate().isBefore(from))
+                        && (end == null || !expense.getDate().isAfter(end)))
+                .toList();
+
+        String referenceId = groupService.createGroup(
+                new GroupRequest("Window " + ++windows, MEMBERS)).getGroupId();
+        if (!inWindow.isEmpty()) {
+            expenseService.addExpenses(referenceId, inWindow);
+        }
+
+        SettlementResponse window = settlementService.calculateSettlements(groupId, mode, asOf, from, to);
+        SettlementResponse reference = settlementService.calculateSettlements(referenceId, mode);
+        assert window.getMemberBalances().equals(reference.getMemberBalances())
+                : "Window " + from + ".." + end + " differs: " + window.getMemberBalances()
+                + " vs " + reference.getMemberBalances();
+        assert window.getSettlements().equals(reference.getSettlements())
+                : "Window " + from + ".." + end + " settles differently";
+    }
+
+    private void assertRejected(String groupId, LocalDate asOf, LocalDate from, LocalDate to) {
+        try {
+            settlementService.calculateSettlements(groupId, null, asOf, from, to);
+            assert false : "Accepted asOf=" + asOf + " from=" + from + " to=" + to;
+        } catch (IllegalArgumentException expected) {
+            // rejected as a bad request
+        }
+    }
+
+    private static List<ExpenseRequest> randomExpenses(Random random, int count) {
+        List<ExpenseRequest> expenses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ExpenseRequest request = new ExpenseRequest();
+            request.setDescription("Expense " + i);
+            request.setAmount((1 + random.nextInt(30_000)) / 100.0);
+            request.setPaidBy(MEMBERS.get(random.nextInt(MEMBERS.size())));
+            request.setDate(START.plusDays(random.nextInt(60)));
+            if (i % 4 == 0) {
+                request.setContributions(Map.of(MEMBERS.get(random.nextInt(MEMBERS.size())), request.getAmount()));
+            }
+            expenses.add(request);
+        }
+        return expenses;
+    }
+}
@@ -0,0 +1,221 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.dto.SettlementResponse;
+import com.fairsplit.journal.ExpenseJournal;
+import com.fairsplit.journal.JournalEntry;
+import com.fairsplit.journal.JournalService;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupService;
+import com.fairsplit.service.SettlementService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * The journal profile: the log survives torn writes, a write the journal cannot record is not
+ * committed, and a restart restores exactly what was committed from a snapshot plus the journal
+ * tail, also when the snapshot was taken while a journaled write was committing.
+ */
+public class ExpenseJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tornTailIsTruncatedAndAppendsContinue() throws Exception {
+        try (ExpenseJournal journal = new ExpenseJournal(directory, 256, false)) {
+            for (int i = 1; i <= 10; i++) {
+                journal.append(JournalEntry.Type.GROUP_DELETED, ("group-" + i).getBytes(StandardCharsets.UTF_8));
+            }
+            assert journal.lastSequence() == 10;
+        }
+
+        // Small segments roll several times; corrupt the last record written
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.sorted().toList();
+        }
+        assert segments.size() > 1 : "Expected the journal to roll, got " + segments;
+        try (RandomAccessFile file = new RandomAccessFile(segments.get(segments.size() - 1).toFile(), "rw")) {
+            int offset = 0;
+            int length = file.readInt();
+            while (true) {
+                file.seek(offset + 25L + length);
+                int next = file.readInt();
+                if (next == 0) {
+                    break;
+                }
+                offset += 25 + length;
+                length = next;
+            }
+            file.seek(offset + 25L);
+            file.write('X');
+        }
+
+        try (ExpenseJournal journal = new ExpenseJournal(directory, 256, false)) {
+            assert journal.lastSequence() == 9 : "Torn record should be dropped, last is " + journal.lastSequence();
+            assert journal.append(JournalEntry.Type.GROUP_DELETED, "again".getBytes(StandardCharsets.UTF_8)) == 10;
+
+            List<String> replayed = new ArrayList<>();
+            journal.replay(4, null, entry -> replayed.add(new String(entry.payload(), StandardCharsets.UTF_8)));
+            assert replayed.equals(List.of("group-5", "group-6", "group-7", "group-8", "group-9", "again"))
+                    : "Unexpected replay " + replayed;
+
+            journal.deleteSegmentsThrough(journal.roll());
+            try (Stream<Path> files = Files.list(directory)) {
+                assert files.count() == 1 : "Only the empty current segment should remain";
+            }
+        }
+    }
+
+    @Test
+    void restartRestoresSnapshotAndJournalTail() throws Exception {
+        String groupId;
+        SettlementResponse before;
+        try (ConfigurableApplicationContext context = start("first")) {
+            GroupService groupService = context.getBean(GroupService.class);
+            ExpenseService expenseService = context.getBean(ExpenseService.class);
+
+            groupId = groupService.createGroup(new GroupRequest("Trip", List.of("Ann", "Ben", "Cal"))).getGroupId();
+            String deleted = groupService.createGroup(new GroupRequest("Gone", List.of("Dee"))).getGroupId();
+            expenseService.addExpense(groupId, expense(90, "Ann", null));
+
+            // Half of the history goes into a snapshot, the rest only into the journal
+            context.getBean(JournalService.class).snapshot();
+            expenseService.addExpenses(groupId, List.of(expense(10, "Ben", null),
+                    expense(33.33, "Cal", Map.of("Ann", 11.11, "Ben", 22.22))));
+            groupService.deleteGroup(deleted);
+            before = context.getBean(SettlementService.class).calculateSettlements(groupId);
+        }
+        // Shutdown snapshots again; drop that one as a crash would, so the tail has to be replayed
+        try (Stream<Path> files = Files.list(directory)) {
+            Files.delete(files.filter(file -> file.getFileName().toString().startsWith("snapshot-"))
+                    .max(Path::compareTo).orElseThrow());
+        }
+
+        try (ConfigurableApplicationContext context = start("second")) {
+            assert context.getBean(GroupService.class).getAllGroups().size() == 1 : "Deleted group came back";
+            assert context.getBean(ExpenseService.class).getExpensesByGroup(groupId).size() == 3;
+            SettlementResponse after = context.getBean(SettlementService.class).calculateSettlements(groupId);
+            assert after.getMemberBalances().equals(before.getMemberBalances())
+                    : "Balances differ after restart: " + before.getMemberBalances() + " vs " + after.getMemberBalances();
+        }
+    }
+
+    @Test
+    void snapshotTakenBeforeAJournaledWriteCommitsKeepsIt() throws Exception {
+        String groupId;
+        List<Path> taken;
+        try (ConfigurableApplicationContext context = start("committing")) {
+            GroupService groupService = context.getBean(GroupService.class);
+            ExpenseService expenseService = context.getBean(ExpenseService.class);
+            JournalService journalService = context.getBean(JournalService.class);
+            groupId = groupService.createGroup(new GroupRequest("Trip", List.of("Ann", "Ben"))).getGroupId();
+            expenseService.addExpense(groupId, expense(20, "Ann", null));
+
+            // The expense's record is appended before the commit; snapshot in between
+            new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+                expenseService.addExpense(groupId, expense(50, "Ben", null));
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        // Its own transaction, so on another thread
+                        CompletableFuture.runAsync(journalService::snapshot).join();
+                    }
+                });
+            });
+            taken = snapshotFiles();
+            assert !taken.isEmpty() : "No snapshot was taken";
+        }
+        // Recover from the snapshot that missed the expense, not one taken at shutdown
+        for (Path file : snapshotFiles()) {
+            if (!taken.contains(file)) {
+                Files.delete(file);
+            }
+        }
+
+        try (ConfigurableApplicationContext context = start("recovered")) {
+            assert context.getBean(ExpenseService.class).getExpensesByGroup(groupId).size() == 2
+                    : "Expense committed after the snapshot was lost";
+        }
+    }
+
+    @Test
+    void failedAppendRollsTheWriteBack() throws Exception {
+        try (ConfigurableApplicationContext context = start("failing")) {
+            GroupService groupService = context.getBean(GroupService.class);
+            ExpenseService expenseService = context.getBean(ExpenseService.class);
+            String groupId = groupService.createGroup(new GroupRequest("Trip", List.of("Ann", "Ben"))).getGroupId();
+            expenseService.addExpense(groupId, expense(20, "Ann", null));
+
+            // As if the next segment could not be mapped
+            context.getBean(ExpenseJournal.class).close();
+
+            try {
+                expenseService.addExpense(groupId, expense(50, "Ben", null));
+                assert false : "Expense committed although the journal could not record it";
+            } catch (RuntimeException expected) {
+                // The append failed before the commit
+            }
+            try {
+                groupService.createGroup(new GroupRequest("Unrecorded", List.of("Cal")));
+                assert false : "Group committed although the journal could not record it";
+            } catch (RuntimeException expected) {
+                // The append failed before the commit
+            }
+
+            assert expenseService.getExpensesByGroup(groupId).size() == 1 : "Unjournaled expense was kept";
+            assert groupService.getAllGroups().size() == 1 : "Unjournaled group was kept";
+            SettlementResponse settlement = context.getBean(SettlementService.class).calculateSettlements(groupId);
+            assert settlement.getMemberBalances().get("Ann").getTotalPaid() == 20.0
+                    : "Ledger kept the unjournaled expense: " + settlement.getMemberBalances();
+            assert settlement.getMemberBalances().get("Ben").getTotalPaid() == 0.0
+                    : "Ledger kept the unjournaled expense: " + settlement.getMemberBalances();
+        }
+    }
+
+    private List<Path> snapshotFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("snapshot-")).toList();
+        }
+    }
+
+    private ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(FairSplitApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("journal")
+                .run("--fairsplit.journal.directory=" + directory,
+                        "--fairsplit.journal.segment-size=64KB",
+                        "--spring.datasource.url=jdbc:h2:mem:journal-" + database,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.hibernate.SQL=INFO",
+                        "--logging.level.com.fairsplit=INFO");
+    }
+
+    private ExpenseRequest expense(double amount, String paidBy, Map<String, Double> contributions) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setDescription("Expense");
+        request.setAmount(amount);
+        request.setPaidBy(paidBy);
+        request.setContributions(contributions);
+        return request;
+    }
+}
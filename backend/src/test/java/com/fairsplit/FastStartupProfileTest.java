@@ -0,0 +1,50 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.LedgerReconciliationResponse;
+import com.fairsplit.repository.GroupRepository;
+import com.fairsplit.service.BalanceLedgerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * The fast-startup profile creates beans on first use, except those that must run at startup,
+ * and seeds the sample data after the application is ready instead of during startup.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:faststartup;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO"
+})
+@ActiveProfiles("fast-startup")
+public class FastStartupProfileTest {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void startsLazilyAndSeedsInTheBackground() throws InterruptedException {
+        // Nothing has asked for these yet
+        assert !context.getBeanFactory().containsSingleton("settlementReportService") : "Report service created eagerly";
+        assert !context.getBeanFactory().containsSingleton("groupUpdateBroadcaster") : "Broadcaster created eagerly";
+        assert meterRegistry.find("fairsplit.groups.stored").gauge() != null : "Application meters not registered at startup";
+
+        GroupRepository groupRepository = context.getBean(GroupRepository.class);
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (groupRepository.count() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assert groupRepository.count() == 3 : "Sample data not seeded, found " + groupRepository.count() + " groups";
+
+        for (LedgerReconciliationResponse report : context.getBean(BalanceLedgerService.class).verifyAll()) {
+            assert report.getConsistent() : "Inconsistent sample ledger: " + report;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.CacheStatsResponse;
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.model.Group;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupCache;
+import com.fairsplit.service.GroupService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Once a group has been read, adding expenses validates the group and its members without
+ * loading the group again, and deleting the group evicts it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:groupcache;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO"
+})
+public class GroupCacheTest {
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private GroupCache groupCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void writesValidateMembersFromTheCacheUntilTheGroupIsDeleted() {
+        String groupId = groupService.createGroup(new GroupRequest("Cached", List.of("Ann", "Ben", "Cat"))).getGroupId();
+        expenseService.addExpense(groupId, expense("Warm up", 30.0, "Ann", null));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long groupLoads = statistics.getEntityStatistics(Group.class.getName()).getLoadCount();
+        CacheStatsResponse before = groupCache.getStats();
+
+        for (int i = 0; i < 20; i++) {
+            expenseService.addExpense(groupId, expense("Lunch " + i, 12.5, "Ben", Map.of("Ann", 5.0, "Cat", 7.5)));
+        }
+
+        assert statistics.getEntityStatistics(Group.class.getName()).getLoadCount() == groupLoads
+                : "Adding expenses loaded the group again";
+        assert groupCache.getStats().getHitCount() - before.getHitCount() == 20
+                : "Expected a cache hit per expense, stats " + groupCache.getStats();
+
+        try {
+            expenseService.addExpense(groupId, expense("Stranger", 10.0, "Ann", Map.of("Zed", 10.0)));
+            assert false : "A non-member contribution was accepted";
+        } catch (IllegalArgumentException expected) {
+            assert expected.getMessage().contains("Zed") : expected.getMessage();
+        }
+
+        groupService.deleteGroup(groupId);
+        assert groupCache.find(groupId).isEmpty() : "Deleted group is still served from the cache";
+        try {
+            expenseService.addExpense(groupId, expense("Too late", 10.0, "Ann", null));
+            assert false : "An expense was added to a deleted group";
+        } catch (IllegalArgumentException expected) {
+            assert expected.getMessage().equals("Group not found: " + groupId) : expected.getMessage();
+        }
+    }
+
+    private static ExpenseRequest expense(String description, double amount, String paidBy, Map<String, Double> contributions) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setDescription(description);
+        request.setAmount(amount);
+        request.setPaidBy(paidBy);
+        request.setContributions(contributions);
+        return request;
+    }
+}
@@ -0,0 +1,115 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Small groups are deleted in place; large ones disappear at once and their expenses and daily
+ * balance index are purged in the background, leaving nothing behind.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:deletion;DB_CLOSE_DELAY=-1",
+        "fairsplit.groups.purge.inline-limit=100",
+        "fairsplit.groups.purge.chunk-size=64",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO"
+})
+public class GroupDeletionTest {
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void smallGroupIsDeletedInPlace() {
+        String groupId = createGroupWithExpenses("Small", 40);
+
+        groupService.deleteGroup(groupId);
+
+        assert expenses(groupId) == 0 : "Expenses of a small group should be deleted with it";
+        assert tombstones(groupId) == 0 : "A small group should not be tombstoned";
+        assert contributions() == 0 : "Contributions should be deleted with their expenses";
+        assert dailyBalances(groupId) == 0 : "The daily index of a small group should be deleted with it";
+    }
+
+    @Test
+    void largeGroupIsTombstonedAndPurged() throws InterruptedException {
+        String groupId = createGroupWithExpenses("Large", 1000);
+
+        groupService.deleteGroup(groupId);
+
+        // Gone for readers at once, and its name is free again
+        assert !groupExists(groupId) : "Deleted group is still visible";
+        assert balances(groupId) == 0 : "Member balances should be deleted with the group";
+        groupService.createGroup(new GroupRequest("Large", List.of("Ann", "Ben"))).getGroupId();
+
+        for (int i = 0; i < 200 && (expenses(groupId) > 0 || dailyBalances(groupId) > 0 || tombstones(groupId) > 0); i++) {
+            Thread.sleep(50);
+        }
+        assert expenses(groupId) == 0 : expenses(groupId) + " expenses were never purged";
+        assert tombstones(groupId) == 0 : "Tombstone outlived the purge";
+        assert contributions() == 0 : "Contributions outlived the purge";
+        assert dailyBalances(groupId) == 0 : dailyBalances(groupId) + " daily index rows were never purged";
+    }
+
+    private String createGroupWithExpenses(String name, int count) {
+        String groupId = groupService.createGroup(new GroupRequest(name, List.of("Ann", "Ben", "Cat"))).getGroupId();
+        List<ExpenseRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ExpenseRequest request = new ExpenseRequest();
+            request.setDescription("Expense " + i);
+            request.setAmount(10.0);
+            request.setPaidBy("Ann");
+            // Spread over many days, so the daily index has more rows than one purge chunk
+            request.setDate(LocalDate.of(2024, 1, 1).plusDays(i));
+            if (i % 2 == 0) {
+                request.setContributions(Map.of("Ben", 4.0, "Cat", 6.0));
+            }
+            requests.add(request);
+        }
+        expenseService.addExpenses(groupId, requests);
+        return groupId;
+    }
+
+    private boolean groupExists(String groupId) {
+        return jdbcTemplate.queryForObject("select count(*) from groups where group_id = ?", Integer.class, groupId) > 0;
+    }
+
+    private int expenses(String groupId) {
+        return jdbcTemplate.queryForObject("select count(*) from expenses where group_id = ?", Integer.class, groupId);
+    }
+
+    private int balances(String groupId) {
+        return jdbcTemplate.queryForObject("select count(*) from group_balances where group_id = ?", Integer.class, groupId);
+    }
+
+    private int dailyBalances(String groupId) {
+        return jdbcTemplate.queryForObject("select count(*) from daily_balances where group_id = ?", Integer.class, groupId);
+    }
+
+    private int tombstones(String groupId) {
+        return jdbcTemplate.queryForObject("select count(*) from group_tombstones where group_id = ?", Integer.class, groupId);
+    }
+
+    // Sample data only has equal splits, so every custom split row belongs to these tests
+    private int contributions() {
+        return jdbcTemplate.queryForObject("select count(*) from expense_contributions", Integer.class);
+    }
+}
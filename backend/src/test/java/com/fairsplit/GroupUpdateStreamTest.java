@@ -0,0 +1,157 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Group update streams over a real connection: a reading client gets each committed expense,
+ * and a client that stops reading is disconnected instead of buffered for, without holding up
+ * the clients that keep reading.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:updates;DB_CLOSE_DELAY=-1",
+        "fairsplit.groups.max-participants=500",
+        "fairsplit.events.buffer-size=4",
+        "fairsplit.events.write-timeout=1s",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO"
+})
+public class GroupUpdateStreamTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void readingSubscriberReceivesCommittedExpense() throws Exception {
+        String groupId = groupService.createGroup(new GroupRequest("Stream", List.of("Ann", "Ben"))).getGroupId();
+
+        try (Socket socket = subscribe(groupId)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            // Skip the response headers
+            while (!reader.readLine().isEmpty()) {
+                // headers
+            }
+            expenseService.addExpense(groupId, expense("Dinner", "Ann"));
+
+            // Chunked framing can split an event across lines, so look for the payload itself
+            socket.setSoTimeout(10_000);
+            String line = reader.readLine();
+            while (line != null && !line.contains("\"description\":\"Dinner\"")) {
+                line = reader.readLine();
+            }
+            assert line != null : "Stream ended without the expense";
+        }
+    }
+
+    @Test
+    void subscriberThatStopsReadingIsDropped() throws Exception {
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            members.add("Member " + i);
+        }
+        String groupId = groupService.createGroup(new GroupRequest("Slow", members)).getGroupId();
+        double droppedBefore = meterRegistry.counter("fairsplit.events.dropped").count();
+
+        try (Socket socket = subscribe(groupId)) {
+            // Never read: once the socket buffers fill, the subscriber's queue does too.
+            // Equal splits push every member's balance, tens of kilobytes per event.
+            for (int i = 0; i < 400 && meterRegistry.counter("fairsplit.events.dropped").count() == droppedBefore; i++) {
+                expenseService.addExpense(groupId, expense("Round " + i, members.get(i)));
+            }
+            assert meterRegistry.counter("fairsplit.events.dropped").count() > droppedBefore
+                    : "A subscriber that stopped reading should have been dropped";
+        }
+    }
+
+    @Test
+    void stalledSubscriberDoesNotDelayOthers() throws Exception {
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            members.add("Member " + i);
+        }
+        String groupId = groupService.createGroup(new GroupRequest("Mixed", members)).getGroupId();
+        double droppedBefore = meterRegistry.counter("fairsplit.events.dropped").count();
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<Stream<String>> response = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/groups/" + groupId + "/events"))
+                        .header("Accept", "text/event-stream").build(),
+                HttpResponse.BodyHandlers.ofLines());
+        AtomicInteger received = new AtomicInteger();
+        Thread reader = new Thread(() -> response.body()
+                .filter(line -> line.equals("event:expenses-added"))
+                .forEach(line -> received.incrementAndGet()));
+        reader.setDaemon(true);
+        reader.start();
+
+        try (Socket stalled = subscribe(groupId)) {
+            // Keep adding until the stalled subscriber is dropped, then a few more
+            int added = 0;
+            for (int extra = 0; added < 400 && extra < 5; added++) {
+                expenseService.addExpense(groupId, expense("Round " + added, members.get(added)));
+                if (meterRegistry.counter("fairsplit.events.dropped").count() > droppedBefore) {
+                    extra++;
+                }
+            }
+            assert meterRegistry.counter("fairsplit.events.dropped").count() == droppedBefore + 1
+                    : "Only the stalled subscriber should have been dropped";
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (received.get() < added && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assert received.get() == added : "Reading subscriber got " + received.get() + " of " + added + " events";
+        } finally {
+            response.body().close();
+        }
+    }
+
+    private Socket subscribe(String groupId) throws Exception {
+        Socket socket = new Socket("localhost", port);
+        socket.setReceiveBufferSize(4096);
+        OutputStream out = socket.getOutputStream();
+        out.write(("GET /api/groups/" + groupId + "/events HTTP/1.1\r\nHost: localhost\r\n"
+                + "Accept: text/event-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return socket;
+    }
+
+    private ExpenseRequest expense(String description, String paidBy) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setDescription(description);
+        request.setAmount(12.34);
+        request.setPaidBy(paidBy);
+        return request;
+    }
+}
@@ -0,0 +1,137 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.dto.SettlementResponse;
+import com.fairsplit.metrics.RequestStatistics;
+import com.fairsplit.repository.GroupRepository;
+import com.fairsplit.service.BalanceLedgerService;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupService;
+import com.fairsplit.service.SettlementService;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test at corporate scale: groups of several thousand members, and concurrent group
+ * creation against a configured cap. Per-expense work must not grow with group size.
+ */
+@SpringBootTest(properties = {
+        "fairsplit.groups.max-groups=40",
+        "fairsplit.groups.max-participants=5000",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO"
+})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class LargeGroupScaleTest {
+
+    private static final int MEMBERS = 5000;
+    private static final int BATCH_EXPENSES = 2000;
+    private static final int SINGLE_EXPENSES = 200;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Order(1)
+    void equalSplitsScaleIndependentlyOfGroupSize() {
+        List<String> members = new ArrayList<>(MEMBERS);
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add("Member " + i);
+        }
+        String groupId = groupService.createGroup(new GroupRequest("Corporate", members)).getGroupId();
+
+        Random random = new Random(7);
+        List<ExpenseRequest> batch = new ArrayList<>(BATCH_EXPENSES);
+        for (int i = 0; i < BATCH_EXPENSES; i++) {
+            batch.add(expense(random, members));
+        }
+        int created = expenseService.addExpenses(groupId, batch).getCreated();
+        assert created == BATCH_EXPENSES : "Expected every expense to be created, got " + created;
+
+        // Statements per single add must not depend on the member count
+        long maxStatements = 0;
+        for (int i = 0; i < SINGLE_EXPENSES; i++) {
+            RequestStatistics.begin();
+            expenseService.addExpense(groupId, expense(random, members));
+            maxStatements = Math.max(maxStatements, RequestStatistics.end().getStatements());
+        }
+        assert maxStatements <= 10 : "An equal split issued " + maxStatements + " statements";
+
+        Integer contributionRows = jdbcTemplate.queryForObject(
+                "select count(*) from expense_contributions c join expenses e on e.expense_id = c.expense_id "
+                        + "where e.group_id = ?", Integer.class, groupId);
+        assert contributionRows == 0 : "Equal splits stored " + contributionRows + " contribution rows";
+
+        assert balanceLedgerService.verify(groupId).getConsistent() : "Ledger drifted from the expenses";
+
+        SettlementResponse settlements = settlementService.calculateSettlements(groupId);
+        assert settlements.getMemberBalances().size() == MEMBERS : "Every member should have a balance";
+        long netCents = settlements.getMemberBalances().values().stream()
+                .mapToLong(balance -> Math.round(balance.getNetBalance() * 100))
+                .sum();
+        assert netCents == 0 : "Net balances should sum to zero, got " + netCents;
+    }
+
+    @Test
+    @Order(2)
+    void concurrentCreationNeverExceedsGroupCap() throws Exception {
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> attempts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String name = "Concurrent " + i;
+            attempts.add(executor.submit(() -> {
+                try {
+                    groupService.createGroup(new GroupRequest(name, List.of("Ann", "Ben")));
+                } catch (IllegalStateException e) {
+                    rejected.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> attempt : attempts) {
+            attempt.get();
+        }
+        executor.shutdown();
+
+        assert groupRepository.count() == 40 : "Group cap exceeded: " + groupRepository.count();
+        assert rejected.get() > 0 : "Some creations should have been rejected";
+    }
+
+    private ExpenseRequest expense(Random random, List<String> members) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setDescription("Team expense");
+        request.setAmount(1 + random.nextInt(1_000_000) / 100.0);
+        request.setPaidBy(members.get(random.nextInt(members.size())));
+        return request;
+    }
+}
@@ -0,0 +1,113 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.dto.LedgerReconciliationResponse;
+import com.fairsplit.dto.SettlementResponse;
+import com.fairsplit.model.Money;
+import com.fairsplit.repository.ExpenseRepository;
+import com.fairsplit.service.BalanceLedgerService;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupService;
+import com.fairsplit.service.SettlementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Reconciliation from database-side totals agrees with the incrementally maintained ledger,
+ * including equal-split rounding remainders, and a rebuild restores a damaged ledger exactly.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reconciliation;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO"
+})
+public class LedgerReconciliationTest {
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aggregatedTotalsMatchTheLedgerAndRebuildIt() {
+        List<String> members = List.of("Ann", "Ben", "Cat", "Dan", "Eve", "Fay", "Gus");
+        String groupId = groupService.createGroup(new GroupRequest("Reconcile", members)).getGroupId();
+
+        // Amounts that rarely divide by seven, so most equal splits leave a remainder
+        Random random = new Random(11);
+        List<ExpenseRequest> expenses = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ExpenseRequest request = new ExpenseRequest();
+            request.setDescription("Expense " + i);
+            request.setAmount((1 + random.nextInt(50_000)) / 100.0);
+            request.setPaidBy(members.get(random.nextInt(members.size())));
+            if (i % 3 == 0) {
+                request.setContributions(Map.of(members.get(random.nextInt(members.size())), request.getAmount()));
+            }
+            expenses.add(request);
+        }
+        expenseService.addExpenses(groupId, expenses);
+        SettlementResponse before = settlementService.calculateSettlements(groupId);
+
+        LedgerReconciliationResponse verified = balanceLedgerService.verify(groupId);
+        assert verified.getConsistent() : "Fresh ledger reported mismatches: " + verified.getMismatches();
+        assert verified.getExpenseCount() == 300 : "Counted " + verified.getExpenseCount() + " expenses";
+
+        jdbcTemplate.update("update group_balances set total_paid_cents = total_paid_cents + 1, "
+                + "net_balance_cents = net_balance_cents + 1 where group_id = ? and participant_id = 2", groupId);
+        jdbcTemplate.update("update groups set equal_share_cents = equal_share_cents + 5 where group_id = ?", groupId);
+        LedgerReconciliationResponse damaged = balanceLedgerService.verify(groupId);
+        assert !damaged.getConsistent() : "Damaged ledger was reported consistent";
+
+        LedgerReconciliationResponse rebuilt = balanceLedgerService.rebuild(groupId);
+        assert rebuilt.getRebuilt() : "Damaged ledger was not rebuilt";
+        assert balanceLedgerService.verify(groupId).getConsistent() : "Rebuilt ledger is still inconsistent";
+        SettlementResponse after = settlementService.calculateSettlements(groupId);
+        assert after.getMemberBalances().equals(before.getMemberBalances())
+                : "Balances differ after rebuild: " + before.getMemberBalances() + " vs " + after.getMemberBalances();
+    }
+
+    @Test
+    void databaseSharesRoundLikeTheWritePath() {
+        List<String> members = List.of("Ann", "Ben");
+        String groupId = groupService.createGroup(new GroupRequest("Large Amounts", members)).getGroupId();
+
+        // Past 2^53 cents a double cannot hold the amount; shares must still match the write path
+        long[] amounts = {(1L << 53) + 1, (1L << 53) + 3, (1L << 54) + 1, 7};
+        long expected = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            jdbcTemplate.update("insert into expenses (expense_id, group_id, description, amount_cents, payer_id, "
+                            + "date, split_type, created_at) values (?, ?, 'Large', ?, 0, ?, 'EQUAL', current_timestamp)",
+                    groupId + "-" + i, groupId, amounts[i], LocalDate.of(2024, 1, 1));
+            expected += Money.equalShare(amounts[i], members.size());
+        }
+
+        long shares = expenseRepository.sumEqualSplits(groupId, members.size()).getShareCents();
+        assert shares == expected : "Database shares " + shares + ", write path " + expected;
+        long dailyShares = expenseRepository.sumEqualSplitsByDate(groupId, members.size()).get(0).getShareCents();
+        assert dailyShares == expected : "Daily index shares " + dailyShares + ", write path " + expected;
+    }
+}
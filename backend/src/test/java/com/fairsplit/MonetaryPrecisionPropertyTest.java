@@ -1,10 +1,15 @@
 package com.fairsplit;
 
+import com.fairsplit.model.Money;
 import net.jqwik.api.*;
 import org.junit.jupiter.api.DisplayName;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Feature: fairsplit-expense-tracker, Property 11: Monetary precision
@@ -12,6 +17,9 @@ import java.math.RoundingMode;
  * 
  * For any monetary calculation (splits, balances, settlements), 
  * all amounts should be rounded to exactly two decimal places.
+ * 
+ * The long-cents properties check that the fixed-point money model gives the
+ * same results as the original BigDecimal arithmetic and never drifts.
  */
 public class MonetaryPrecisionPropertyTest {
     
@@ -61,6 +69,102 @@ public class MonetaryPrecisionPropertyTest {
             "Sum of shares should be within 0.01 of total";
     }
     
+    @Property(tries = 1000)
+    @Label("Converting to cents matches BigDecimal half-up rounding")
+    void centsConversionMatchesBigDecimalRounding(@ForAll("anyAmounts") double amount) {
+        BigDecimal expected = BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+        long cents = Money.toCents(amount);
+        
+        assert cents == expected.unscaledValue().longValueExact() :
+            amount + " became " + cents + " cents, expected " + expected;
+        assert Money.toAmount(cents) == expected.doubleValue() :
+            "Round trip of " + cents + " cents should equal " + expected.doubleValue();
+    }
+    
+    @Property(tries = 1000)
+    @Label("Equal split in cents matches the BigDecimal split and sums to the total exactly")
+    void equalSplitInCentsMatchesBigDecimalSplit(
+            @ForAll("monetaryAmounts") double amount,
+            @ForAll("participantCount") int participants) {
+        long totalCents = Money.toCents(amount);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < participants; i++) {
+            names.add("p" + i);
+        }
+        
+        Map<String, Long> splits = Money.splitEqually(totalCents, names);
+        
+        // Reference: the original BigDecimal allocation, last participant takes the remainder
+        BigDecimal total = BigDecimal.valueOf(totalCents, 2);
+        BigDecimal share = total.divide(BigDecimal.valueOf(participants), 2, RoundingMode.HALF_UP);
+        BigDecimal lastShare = total.subtract(share.multiply(BigDecimal.valueOf(participants - 1)));
+        for (int i = 0; i < participants - 1; i++) {
+            assert splits.get(names.get(i)) == share.unscaledValue().longValueExact() :
+                "Share of " + names.get(i) + " differs from BigDecimal split";
+        }
+        assert splits.get(names.get(participants - 1)) == lastShare.unscaledValue().longValueExact() :
+            "Remainder share differs from BigDecimal split";
+        
+        long sum = splits.values().stream().mapToLong(Long::longValue).sum();
+        assert sum == totalCents : "Shares sum to " + sum + " cents, expected " + totalCents;
+    }
+    
+    @Property(tries = 200)
+    @Label("Accumulating many amounts in cents never drifts from the exact decimal sum")
+    void centsAccumulationDoesNotDrift(@ForAll("expenseAmounts") List<Double> amounts) {
+        long cents = 0;
+        BigDecimal exact = BigDecimal.ZERO;
+        double naive = 0;
+        for (double amount : amounts) {
+            cents += Money.toCents(amount);
+            exact = exact.add(BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP));
+            naive += amount;
+        }
+        
+        assert BigDecimal.valueOf(cents, 2).compareTo(exact) == 0 :
+            "Cents sum " + cents + " drifted from exact sum " + exact + " (double sum was " + naive + ")";
+        assert Money.toAmount(cents) == exact.doubleValue() :
+            "Cents sum should convert to the same double as the exact sum";
+    }
+    
+    @Example
+    @Label("Amounts that cannot be held in cents are rejected as bad input")
+    void unrepresentableAmountsAreRejected() {
+        Map<String, Double> missing = new HashMap<>();
+        missing.put("Ann", null);
+        List<Runnable> conversions = List.of(
+                () -> Money.toCents(1e300),
+                () -> Money.toCents(-1e300),
+                () -> Money.toCents(Double.NaN),
+                () -> Money.toCents(Double.POSITIVE_INFINITY),
+                () -> Money.toCents(Map.of("Ann", 1e20)),
+                () -> Money.toCents(missing));
+        for (Runnable conversion : conversions) {
+            try {
+                conversion.run();
+                assert false : "Expected the amount to be rejected";
+            } catch (IllegalArgumentException e) {
+                // Reported as 400 Bad Request
+            }
+        }
+        assert Money.toCents(1_000_000_000_000.25) == 100_000_000_000_025L : "A large amount was rejected";
+    }
+    
+    @Provide
+    Arbitrary<Double> anyAmounts() {
+        return Arbitraries.oneOf(
+                Arbitraries.doubles().between(0.0, 1_000_000.0),
+                Arbitraries.bigDecimals().between(BigDecimal.ZERO, BigDecimal.valueOf(1_000_000))
+                        .ofScale(3).map(BigDecimal::doubleValue));
+    }
+    
+    @Provide
+    Arbitrary<List<Double>> expenseAmounts() {
+        return Arbitraries.bigDecimals().between(BigDecimal.valueOf(0.01), BigDecimal.valueOf(10000))
+                .ofScale(2).map(BigDecimal::doubleValue)
+                .list().ofMinSize(1).ofMaxSize(500);
+    }
+    
     @Provide
     Arbitrary<Double> monetaryAmounts() {
         return Arbitraries.doubles()
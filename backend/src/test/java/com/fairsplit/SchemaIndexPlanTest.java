@@ -0,0 +1,116 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Runs the durable-profile migrations against a large data set and checks that the
+ * hot lookups are planned on the indexes from V1__initial_schema.sql. Hibernate validates
+ * the migrated schema against the entities at startup.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plans;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "fairsplit.groups.max-groups=100",
+        "fairsplit.groups.max-participants=100",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class SchemaIndexPlanTest {
+
+    private static final int GROUPS = 10;
+    private static final int EXPENSES_PER_GROUP = 1000;
+    private static final int MEMBERS = 50;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String groupId;
+    private String expenseId;
+
+    @BeforeAll
+    void loadData() {
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add("Member " + i);
+        }
+
+        Random random = new Random(11);
+        for (int g = 0; g < GROUPS; g++) {
+            groupId = groupService.createGroup(new GroupRequest("Plan Group " + g, members)).getGroupId();
+
+            List<ExpenseRequest> batch = new ArrayList<>();
+            for (int i = 0; i < EXPENSES_PER_GROUP; i++) {
+                ExpenseRequest request = new ExpenseRequest();
+                request.setDescription("Expense " + i);
+                request.setAmount(10.0 + random.nextInt(1000));
+                request.setPaidBy(members.get(random.nextInt(MEMBERS)));
+                request.setDate(LocalDate.now().minusDays(random.nextInt(365)));
+                // Every tenth expense is a custom split, so contributions exist
+                if (i % 10 == 0) {
+                    request.setContributions(Map.of(members.get(0), request.getAmount()));
+                }
+                batch.add(request);
+            }
+            expenseService.addExpenses(groupId, batch);
+        }
+        expenseId = jdbcTemplate.queryForObject(
+                "select expense_id from expenses e where exists "
+                        + "(select 1 from expense_contributions c where c.expense_id = e.expense_id) limit 1",
+                String.class);
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    void expensePagesUseGroupDateIndex() {
+        assertPlanUses("idx_expenses_group_date",
+                "select * from expenses e where e.group_id = '" + groupId + "' "
+                        + "order by e.date desc, e.created_at desc, e.expense_id desc limit 51");
+    }
+
+    @Test
+    void contributionsUseExpenseIndex() {
+        assertPlanUses("idx_expense_contributions_expense",
+                "select * from expense_contributions c where c.expense_id in ('" + expenseId + "')");
+    }
+
+    @Test
+    void participantsUseGroupIndex() {
+        assertPlanUses("idx_group_participants_group",
+                "select * from group_participants p where p.group_id = '" + groupId + "'");
+    }
+
+    @Test
+    void caseInsensitiveNameLookupUsesNameKeyIndex() {
+        assertPlanUses("idx_groups_name_key",
+                "select * from groups g where g.group_name_key = upper('plan group 7')");
+    }
+
+    private void assertPlanUses(String index, String sql) {
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+        assert plan.toLowerCase().contains(index) : "Expected " + index + " in plan:\n" + plan;
+    }
+}
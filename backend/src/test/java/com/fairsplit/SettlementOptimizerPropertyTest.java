@@ -0,0 +1,220 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.SettlementResponse;
+import com.fairsplit.service.ExactSettlementSolver;
+import com.fairsplit.service.GreedySettlementOptimizer;
+import net.jqwik.api.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * Feature: fairsplit-expense-tracker, Property 8: Settlement completeness
+ * Validates: Requirements 10.1
+ * 
+ * The heap-based greedy matcher must produce exactly the settlements of the
+ * original scan-based algorithm, and settle every balance it is given. The
+ * exact solver must settle everything too, never with more transfers.
+ */
+public class SettlementOptimizerPropertyTest {
+    
+    @Property(tries = 200)
+    @Label("Heap-based matcher produces the same settlements as the scan-based algorithm")
+    void heapMatcherMatchesScanAlgorithm(@ForAll("zeroSumBalances") long[] balances) {
+        String[] participants = names(balances.length);
+        
+        List<SettlementResponse.Settlement> expected = scanOptimize(participants, balances);
+        List<SettlementResponse.Settlement> actual = GreedySettlementOptimizer.optimize(participants, balances);
+        
+        assert expected.equals(actual) : "Expected " + expected + " but was " + actual;
+    }
+    
+    @Property(tries = 200)
+    @Label("Following the settlements brings every balance to zero")
+    void settlementsClearAllBalances(@ForAll("zeroSumBalances") long[] balances) {
+        String[] participants = names(balances.length);
+        Map<String, Long> remaining = new HashMap<>();
+        for (int i = 0; i < balances.length; i++) {
+            remaining.put(participants[i], balances[i]);
+        }
+        
+        for (SettlementResponse.Settlement settlement : GreedySettlementOptimizer.optimize(participants, balances)) {
+            long cents = Math.round(settlement.getAmount() * 100);
+            assert cents > 0 : "Settlement amount should be positive";
+            remaining.merge(settlement.getFrom(), cents, Long::sum);
+            remaining.merge(settlement.getTo(), -cents, Long::sum);
+        }
+        
+        assert remaining.values().stream().allMatch(v -> v == 0) : "Unsettled balances: " + remaining;
+    }
+    
+    @Property(tries = 200)
+    @Label("Exact solver clears all balances with no more transfers than greedy")
+    void exactSolverNeverNeedsMoreTransfers(@ForAll("smallZeroSumBalances") long[] balances) {
+        String[] participants = names(balances.length);
+        ExactSettlementSolver solver = new ExactSettlementSolver(10_000, 16, 1);
+        
+        List<SettlementResponse.Settlement> exact = solver.solve(participants, balances).orElseThrow();
+        List<SettlementResponse.Settlement> greedy = GreedySettlementOptimizer.optimize(participants, balances);
+        
+        assert exact.size() <= greedy.size() : "Exact used " + exact.size() + " transfers, greedy " + greedy.size();
+        
+        Map<String, Long> remaining = new HashMap<>();
+        for (int i = 0; i < balances.length; i++) {
+            remaining.put(participants[i], balances[i]);
+        }
+        for (SettlementResponse.Settlement settlement : exact) {
+            long cents = Math.round(settlement.getAmount() * 100);
+            remaining.merge(settlement.getFrom(), cents, Long::sum);
+            remaining.merge(settlement.getTo(), -cents, Long::sum);
+        }
+        assert remaining.values().stream().allMatch(v -> v == 0) : "Unsettled balances: " + remaining;
+    }
+    
+    @Example
+    @Label("Exact solver finds independent pairs that greedy matching splits up")
+    void exactSolverFindsZeroSumSubgroups() {
+        // Greedy pairs 6 with -5 first and chains the remainders: 4 transfers.
+        // Splitting into {6, -4, -2} and {5, -5} needs only 3.
+        String[] participants = {"a", "b", "c", "d", "e"};
+        long[] balances = {600, 500, -500, -400, -200};
+        
+        List<SettlementResponse.Settlement> exact = new ExactSettlementSolver(10_000, 16, 1)
+                .solve(participants, balances).orElseThrow();
+        
+        assert exact.size() == 3 : "Expected 3 transfers but was " + exact;
+    }
+    
+    @Example
+    @Label("Exact solver gives up once the time budget is spent")
+    void exactSolverRespectsTimeBudget() {
+        long[] balances = new long[16];
+        for (int i = 0; i < 15; i++) {
+            balances[i] = (i % 2 == 0 ? 1 : -1) * (101L + i * 37);
+        }
+        balances[15] = -Arrays.stream(balances).sum();
+        
+        assert new ExactSettlementSolver(0, 16, 1).solve(names(16), balances).isEmpty()
+                : "A zero budget should force the greedy fallback";
+    }
+    
+    @Example
+    @Label("Exact solver falls back when no solve slot is free")
+    void exactSolverRespectsConcurrencyLimit() {
+        long[] balances = {600, 500, -500, -400, -200};
+        
+        assert new ExactSettlementSolver(10_000, 16, 0).solve(names(5), balances).isEmpty()
+                : "No free slot should force the greedy fallback";
+    }
+    
+    @Example
+    @Label("A settlement pass over 100k members clears every balance with fewer than n transfers")
+    void settlesOneHundredThousandMembers() {
+        int members = 100_000;
+        long[] balances = new long[members];
+        Random random = new Random(42);
+        long sum = 0;
+        for (int i = 0; i < members - 1; i++) {
+            balances[i] = random.nextInt(2_000_000) - 1_000_000;
+            sum += balances[i];
+        }
+        balances[members - 1] = -sum;
+        String[] participants = names(members);
+        
+        // Timing lives in GreedySettlementBenchmark
+        List<SettlementResponse.Settlement> settlements = GreedySettlementOptimizer.optimize(participants, balances);
+        
+        assert settlements.size() < members : "Greedy matching needs fewer than n transfers";
+        Map<String, Long> remaining = new HashMap<>();
+        for (int i = 0; i < members; i++) {
+            remaining.put(participants[i], balances[i]);
+        }
+        for (SettlementResponse.Settlement settlement : settlements) {
+            long cents = Math.round(settlement.getAmount() * 100);
+            remaining.merge(settlement.getFrom(), cents, Long::sum);
+            remaining.merge(settlement.getTo(), -cents, Long::sum);
+        }
+        assert remaining.values().stream().allMatch(v -> v == 0) : "Some of 100k balances were left unsettled";
+    }
+    
+    @Provide
+    Arbitrary<long[]> zeroSumBalances() {
+        // Small cent ranges so equal amounts (and therefore tie-breaking) come up regularly
+        return Arbitraries.longs().between(-5_000, 5_000)
+                .array(long[].class).ofMinSize(1).ofMaxSize(30)
+                .map(values -> {
+                    long[] balances = Arrays.copyOf(values, values.length + 1);
+                    balances[values.length] = -Arrays.stream(values).sum();
+                    return balances;
+                });
+    }
+    
+    @Provide
+    Arbitrary<long[]> smallZeroSumBalances() {
+        // Few distinct values so zero-sum subgroups are common
+        return Arbitraries.longs().between(-4, 4).map(v -> v * 100)
+                .array(long[].class).ofMinSize(1).ofMaxSize(11)
+                .map(values -> {
+                    long[] balances = Arrays.copyOf(values, values.length + 1);
+                    balances[values.length] = -Arrays.stream(values).sum();
+                    return balances;
+                });
+    }
+    
+    private static String[] names(int count) {
+        String[] participants = new String[count];
+        for (int i = 0; i < count; i++) {
+            participants[i] = "member-" + i;
+        }
+        return participants;
+    }
+    
+    // The original algorithm, with sorted maps so that ties resolve by name
+    private static List<SettlementResponse.Settlement> scanOptimize(String[] participants, long[] balances) {
+        Map<String, BigDecimal> creditorBalances = new TreeMap<>();
+        Map<String, BigDecimal> debtorBalances = new TreeMap<>();
+        for (int i = 0; i < participants.length; i++) {
+            BigDecimal balance = BigDecimal.valueOf(balances[i], 2);
+            if (balance.signum() > 0) {
+                creditorBalances.put(participants[i], balance);
+            } else if (balance.signum() < 0) {
+                debtorBalances.put(participants[i], balance);
+            }
+        }
+        
+        List<SettlementResponse.Settlement> settlements = new ArrayList<>();
+        while (!creditorBalances.isEmpty() && !debtorBalances.isEmpty()) {
+            Map.Entry<String, BigDecimal> maxCreditor = creditorBalances.entrySet().stream()
+                    .max(Map.Entry.comparingByValue()).orElseThrow();
+            Map.Entry<String, BigDecimal> maxDebtor = debtorBalances.entrySet().stream()
+                    .min(Map.Entry.comparingByValue()).orElseThrow();
+            
+            String creditor = maxCreditor.getKey();
+            String debtor = maxDebtor.getKey();
+            BigDecimal creditorAmount = maxCreditor.getValue();
+            BigDecimal debtorAmount = maxDebtor.getValue().abs();
+            BigDecimal transferAmount = creditorAmount.min(debtorAmount);
+            
+            settlements.add(SettlementResponse.Settlement.builder()
+                    .from(debtor)
+                    .to(creditor)
+                    .amount(transferAmount.setScale(2, RoundingMode.HALF_UP).doubleValue())
+                    .build());
+            
+            BigDecimal newCreditorBalance = creditorAmount.subtract(transferAmount);
+            BigDecimal newDebtorBalance = debtorAmount.subtract(transferAmount);
+            if (newCreditorBalance.compareTo(BigDecimal.valueOf(0.01)) < 0) {
+                creditorBalances.remove(creditor);
+            } else {
+                creditorBalances.put(creditor, newCreditorBalance);
+            }
+            if (newDebtorBalance.compareTo(BigDecimal.valueOf(0.01)) < 0) {
+                debtorBalances.remove(debtor);
+            } else {
+                debtorBalances.put(debtor, newDebtorBalance.negate());
+            }
+        }
+        return settlements;
+    }
+}
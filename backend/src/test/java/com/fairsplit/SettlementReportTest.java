@@ -0,0 +1,93 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.ExpenseRequest;
+import com.fairsplit.dto.GroupRequest;
+import com.fairsplit.dto.GroupSettlementResponse;
+import com.fairsplit.dto.SettlementResponse;
+import com.fairsplit.repository.GroupRepository;
+import com.fairsplit.service.ExpenseService;
+import com.fairsplit.service.GroupService;
+import com.fairsplit.service.SettlementReportService;
+import com.fairsplit.service.SettlementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The all-groups report settles every group exactly once, as the per-group endpoint does,
+ * and hands results over outside any transaction.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:report;DB_CLOSE_DELAY=-1",
+        "fairsplit.groups.max-groups=200",
+        "fairsplit.groups.max-participants=50",
+        "fairsplit.settlement.report.parallelism=4",
+        "fairsplit.settlement.report.chunk-size=16",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO"
+})
+public class SettlementReportTest {
+
+    private static final int GROUPS = 150;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private SettlementReportService settlementReportService;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Test
+    void reportMatchesPerGroupSettlements() {
+        Random random = new Random(5);
+        for (int g = 0; g < GROUPS; g++) {
+            List<String> members = new ArrayList<>();
+            for (int i = 0; i < 2 + random.nextInt(30); i++) {
+                members.add("Member " + i);
+            }
+            String groupId = groupService.createGroup(new GroupRequest("Report " + g, members)).getGroupId();
+            List<ExpenseRequest> expenses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                ExpenseRequest request = new ExpenseRequest();
+                request.setDescription("Expense " + i);
+                request.setAmount(1 + random.nextInt(50_000) / 100.0);
+                request.setPaidBy(members.get(random.nextInt(members.size())));
+                expenses.add(request);
+            }
+            expenseService.addExpenses(groupId, expenses);
+        }
+
+        Map<String, GroupSettlementResponse> report = new HashMap<>();
+        settlementReportService.reportAll(false, group -> {
+            // A slow reader must not hold a transaction, and with it a pooled connection
+            assert !TransactionSynchronizationManager.isActualTransactionActive() : "Report written inside a transaction";
+            assert report.put(group.getGroupId(), group) == null : "Reported twice: " + group.getGroupName();
+        });
+
+        // Sample data groups are included too, across several chunks
+        assert report.size() == groupRepository.count() : "Expected every group, got " + report.size();
+        for (GroupSettlementResponse group : report.values()) {
+            SettlementResponse single = settlementService.calculateSettlements(group.getGroupId());
+            assert group.getMemberBalances().equals(single.getMemberBalances())
+                    : "Balances differ for " + group.getGroupName();
+            assert group.getSettlements().equals(single.getSettlements())
+                    : "Settlements differ for " + group.getGroupName();
+        }
+    }
+}
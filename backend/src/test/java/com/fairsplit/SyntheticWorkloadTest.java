@@ -0,0 +1,72 @@
+package com.fairsplit;
+
+import com.fairsplit.dto.LedgerReconciliationResponse;
+import com.fairsplit.repository.ExpenseRepository;
+import com.fairsplit.repository.GroupRepository;
+import com.fairsplit.service.BalanceLedgerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+/**
+ * The synthetic profile fills the database with the configured, skewed workload through the
+ * regular write path, leaving every ledger consistent with its expenses.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:synthetic;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.com.fairsplit=INFO",
+        "fairsplit.synthetic.groups=6",
+        "fairsplit.synthetic.participants=10",
+        "fairsplit.synthetic.expenses=3000",
+        "fairsplit.synthetic.batch-size=400"
+})
+@ActiveProfiles("synthetic")
+public class SyntheticWorkloadTest {
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void generatesTheConfiguredSkewedWorkload() {
+        assert groupRepository.count() == 6 : "Expected 6 groups, got " + groupRepository.count();
+        assert expenseRepository.count() == 3000 : "Expected 3000 expenses, got " + expenseRepository.count();
+
+        // Zipf over six groups gives the largest about 2.4 times the average
+        List<Long> groupSizes = jdbcTemplate.queryForList(
+                "select count(*) from expenses group by group_id order by count(*) desc", Long.class);
+        assert groupSizes.get(0) > 2 * groupSizes.get(groupSizes.size() - 1) : "Group sizes not skewed: " + groupSizes;
+
+        // The top payer of each group pays far more than an even tenth of its expenses
+        List<Double> topPayerShares = jdbcTemplate.queryForList(
+                "select max(paid) * 1.0 / sum(paid) from (select group_id, count(*) as paid from expenses "
+                        + "group by group_id, payer_id) group by group_id", Double.class);
+        assert topPayerShares.stream().allMatch(share -> share > 0.2) : "Payers not skewed: " + topPayerShares;
+
+        double customShare = jdbcTemplate.queryForObject(
+                "select sum(case when split_type = 'CUSTOM' then 1 else 0 end) * 1.0 / count(*) from expenses", Double.class);
+        assert customShare > 0.2 && customShare < 0.4 : "Custom split share " + customShare;
+        Long unbalanced = jdbcTemplate.queryForObject("select count(*) from expenses e where e.split_type = 'CUSTOM' "
+                + "and e.amount_cents <> (select sum(c.amount_cents) from expense_contributions c "
+                + "where c.expense_id = e.expense_id)", Long.class);
+        assert unbalanced == 0 : unbalanced + " custom splits do not add up to their amount";
+
+        for (LedgerReconciliationResponse report : balanceLedgerService.verifyAll()) {
+            assert report.getConsistent() : "Inconsistent ledger after generation: " + report;
+        }
+    }
+}
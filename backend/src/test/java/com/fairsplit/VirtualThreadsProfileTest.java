@@ -0,0 +1,35 @@
+package com.fairsplit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The virtual-threads profile refuses to start on a runtime without virtual threads, rather
+ * than quietly serving on platform threads.
+ */
+public class VirtualThreadsProfileTest {
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void startupFailsBeforeJava21() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FairSplitApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("virtual-threads")
+                .run("--spring.datasource.url=jdbc:h2:mem:virtual-threads",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.hibernate.SQL=INFO",
+                        "--logging.level.com.fairsplit=INFO")) {
+            assert false : "Started with virtual threads requested on Java " + Runtime.version().feature();
+        } catch (RuntimeException e) {
+            Throwable cause = e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            assert cause.getMessage().contains("need Java 21+") : "Failed for another reason: " + cause;
+        }
+    }
+}
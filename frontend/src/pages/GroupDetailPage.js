@@ -19,20 +19,62 @@ const GroupDetailPage = () => {
         fetchGroupData();
     }, [groupId]);
 
+    // Apply changes pushed by the server instead of polling
+    useEffect(() => {
+        return groupService.subscribe(groupId, {
+            'expenses-added': (update) => {
+                if (!update.expenses) {
+                    // Too many to push at once
+                    fetchGroupData();
+                    return;
+                }
+                setExpenses((current) => {
+                    const known = new Set(current.map((expense) => expense.expenseId));
+                    const added = update.expenses.filter((expense) => !known.has(expense.expenseId));
+                    return [...added, ...current].sort((a, b) =>
+                        b.date.localeCompare(a.date) || b.createdAt.localeCompare(a.createdAt));
+                });
+                applyBalances(update, false);
+            },
+            'balances-changed': (update) => applyBalances(update, true),
+            'group-deleted': () => navigate('/'),
+        }, refreshGroupData);
+    }, [groupId]);
+
+    const applyBalances = (update, replace) => {
+        setSettlements((current) => ({
+            ...current,
+            settlements: update.settlements,
+            memberBalances: replace
+                ? update.memberBalances
+                : { ...current?.memberBalances, ...update.memberBalances },
+        }));
+        setGroup((current) => current && { ...current, totalExpense: update.totalExpense });
+    };
+
+    const loadGroupData = async () => {
+        const [groupData, expensesData, settlementsData] = await Promise.all([
+            groupService.getById(groupId),
+            expenseService.getByGroup(groupId),
+            settlementService.getSettlements(groupId),
+        ]);
+
+        setGroup(groupData);
+        setExpenses(expensesData);
+        setSettlements(settlementsData);
+    };
+
+    // Catches up after the update stream reconnects, without the loading screen
+    const refreshGroupData = () => {
+        loadGroupData().catch((err) => console.error('Error refreshing group data:', err));
+    };
+
     const fetchGroupData = async () => {
         try {
             setLoading(true);
             setError(null);
 
-            const [groupData, expensesData, settlementsData] = await Promise.all([
-                groupService.getById(groupId),
-                expenseService.getByGroup(groupId),
-                settlementService.getSettlements(groupId),
-            ]);
-
-            setGroup(groupData);
-            setExpenses(expensesData);
-            setSettlements(settlementsData);
+            await loadGroupData();
         } catch (err) {
             setError('Failed to load group details. Please try again.');
             console.error('Error fetching group data:', err);
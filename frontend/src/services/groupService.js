@@ -24,6 +24,27 @@ const groupService = {
         const response = await apiClient.delete(`/groups/${groupId}`);
         return response.data;
     },
+
+    // Listen for committed changes to a group; returns a function that stops listening.
+    // Changes made while the stream was down are not replayed, so onReconnect is called
+    // once it is back, for the caller to re-fetch what it shows
+    subscribe: (groupId, handlers, onReconnect) => {
+        const source = new EventSource(`${apiClient.defaults.baseURL}/groups/${groupId}/events`);
+        Object.entries(handlers).forEach(([eventName, handler]) => {
+            source.addEventListener(eventName, (event) => handler(JSON.parse(event.data)));
+        });
+        let interrupted = false;
+        source.onerror = () => {
+            interrupted = true;
+        };
+        source.onopen = () => {
+            if (interrupted) {
+                interrupted = false;
+                onReconnect?.();
+            }
+        };
+        return () => source.close();
+    },
 };
 
 export default groupService;